@@ -0,0 +1,153 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Builds the engines and the sample inputs the benchmarks run on.
+ */
+final class BenchmarkDecks {
+
+    /**
+     * The number of samples prepared per trial (a power of 2, so benchmarks can cycle through them with a mask).
+     */
+    static final int SAMPLES = 1 << 10;
+
+    private static final Logger logger = Logger.getLogger(BenchmarkDecks.class.getName());
+
+    private BenchmarkDecks() {}
+
+    /**
+     * @param deck - the deck dimensions, as "featureCount x featureSize" (e.g. "4x3").
+     */
+    static Config config(String deck) {
+        String[] dimensions = deck.split("x");
+        Properties properties = new Properties();
+        properties.put("FeatureCount", dimensions[0].trim());
+        properties.put("FeatureSize", dimensions[1].trim());
+        properties.put("LogLevel", "WARNING");
+        return new Config(logger, properties);
+    }
+
+    /**
+     * @param engine         - "baseline" for the reference engine, "current" for UtilImpl, "mapped" for UtilImpl with a
+     *                       pair completion table.
+     * @param cacheDirectory - the directory of the completion table of the "mapped" engine (ignored by the others).
+     */
+    static Util util(String deck, String engine, Path cacheDirectory) {
+        switch (engine) {
+            case "baseline":
+                return new BaselineUtil(config(deck));
+            case "current":
+                return new UtilImpl(config(deck));
+            case "mapped":
+                Config config = config(deck);
+                Properties properties = new Properties();
+                properties.put("FeatureCount", Integer.toString(config.featureCount));
+                properties.put("FeatureSize", Integer.toString(config.featureSize));
+                properties.put("LogLevel", "WARNING");
+                properties.put("CacheDirectory", cacheDirectory.toString());
+                return new UtilImpl(new Config(logger, properties));
+            default:
+                throw new IllegalArgumentException("unknown engine: " + engine);
+        }
+    }
+
+    /**
+     * @return - a fresh temporary directory for the completion table of the "mapped" engine.
+     */
+    static Path createCacheDirectory() {
+        try {
+            return Files.createTempDirectory("set-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes a directory made by createCacheDirectory, with its files.
+     */
+    static void deleteCacheDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Collections.reverseOrder())::iterator)
+                Files.delete(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Draws claims of config.featureSize distinct cards, hitRatio of them legal sets.
+     *
+     * @param reference - an engine that completes sets.
+     */
+    static int[][] claims(Config config, Util reference, double hitRatio, Random random) {
+        int[][] claims = new int[SAMPLES][];
+        for (int i = 0; i < SAMPLES; ) {
+            boolean hit = i < Math.round(hitRatio * SAMPLES);
+            int[] claim = random.ints(0, config.deckSize).distinct().limit(config.featureSize).toArray();
+            if (hit) claim[claim.length - 1] = reference.completeSet(Arrays.copyOf(claim, claim.length - 1));
+            if (reference.testSet(claim) == hit && IntStream.of(claim).distinct().count() == claim.length)
+                claims[i++] = claim;
+        }
+        shuffle(claims, random);
+        return claims;
+    }
+
+    /**
+     * Draws tables of tableSize distinct cards, hitRatio of them with at least one legal set. Tables without sets are
+     * grown greedily; when the deck has no set-free table that large, they keep as few sets as the greedy pass allows.
+     */
+    static List<List<Integer>> tables(Config config, Util reference, int tableSize, double hitRatio, Random random) {
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        List<List<Integer>> tables = new ArrayList<>(SAMPLES);
+        for (int i = 0; i < SAMPLES; ++i) {
+            Collections.shuffle(deck, random);
+            boolean hit = i < Math.round(hitRatio * SAMPLES);
+            List<Integer> table = new ArrayList<>(tableSize);
+            if (hit) {
+                table.addAll(deck.subList(0, Math.min(tableSize, deck.size())));
+                if (reference.findSets(table, 1).isEmpty()) {
+                    --i;
+                    continue;
+                }
+            } else {
+                for (int card : deck) {
+                    if (table.size() == tableSize) break;
+                    table.add(card);
+                    if (!reference.findSets(table, 1).isEmpty()) table.remove(table.size() - 1);
+                }
+                for (int card : deck)
+                    if (table.size() < tableSize && !table.contains(card)) table.add(card);
+            }
+            tables.add(table);
+        }
+        Collections.shuffle(tables, random);
+        return tables;
+    }
+
+    private static void shuffle(int[][] samples, Random random) {
+        for (int i = samples.length - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int[] sample = samples[i];
+            samples[i] = samples[j];
+            samples[j] = sample;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the feature decoding methods of Util.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeaturesBenchmark {
+
+    @Param({"4x3", "5x3", "6x3", "4x4"})
+    public String deck;
+
+    @Param({"baseline", "current"})
+    public String engine;
+
+    private Util util;
+    private int[][] claims;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchmarkDecks.config(deck);
+        util = BenchmarkDecks.util(deck, engine, null);
+        claims = BenchmarkDecks.claims(config, new UtilImpl(config), 0.5, new Random(42));
+    }
+
+    @Benchmark
+    public int[] cardToFeatures() {
+        return util.cardToFeatures(claims[next++ & (BenchmarkDecks.SAMPLES - 1)][0]);
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(claims[next++ & (BenchmarkDecks.SAMPLES - 1)]);
+    }
+}
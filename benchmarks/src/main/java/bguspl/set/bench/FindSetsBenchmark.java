@@ -0,0 +1,74 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Util.findSets on tables of tableSize cards, hitRatio of them with at least one legal set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindSetsBenchmark {
+
+    @Param({"4x3", "5x3", "6x3", "4x4"})
+    public String deck;
+
+    @Param({"12", "15", "21"})
+    public int tableSize;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double hitRatio;
+
+    @Param({"baseline", "current", "mapped"})
+    public String engine;
+
+    private Util util;
+    private List<List<Integer>> tables;
+    private int next;
+
+    /**
+     * The temporary directory of the completion table (null unless the engine is "mapped").
+     */
+    private Path cacheDirectory;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchmarkDecks.config(deck);
+        if (engine.equals("mapped")) cacheDirectory = BenchmarkDecks.createCacheDirectory();
+        util = BenchmarkDecks.util(deck, engine, cacheDirectory);
+        tables = BenchmarkDecks.tables(config, new UtilImpl(config), tableSize, hitRatio, new Random(42));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (cacheDirectory != null) BenchmarkDecks.deleteCacheDirectory(cacheDirectory);
+        cacheDirectory = null;
+    }
+
+    /**
+     * The dealer's question: is there any set at all?
+     */
+    @Benchmark
+    public List<int[]> findFirstSet() {
+        return util.findSets(tables.get(next++ & (BenchmarkDecks.SAMPLES - 1)), 1);
+    }
+
+    /**
+     * The hints' question: which sets are there?
+     */
+    @Benchmark
+    public List<int[]> findAllSets() {
+        return util.findSets(tables.get(next++ & (BenchmarkDecks.SAMPLES - 1)), Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,46 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Util.testSet on claims of featureSize cards, hitRatio of them legal sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestSetBenchmark {
+
+    @Param({"4x3", "5x3", "6x3", "4x4"})
+    public String deck;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double hitRatio;
+
+    @Param({"baseline", "current"})
+    public String engine;
+
+    private Util util;
+    private int[][] claims;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchmarkDecks.config(deck);
+        util = BenchmarkDecks.util(deck, engine, null);
+        claims = BenchmarkDecks.claims(config, new UtilImpl(config), hitRatio, new Random(42));
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(claims[next++ & (BenchmarkDecks.SAMPLES - 1)]);
+    }
+}
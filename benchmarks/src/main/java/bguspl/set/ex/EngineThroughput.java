@@ -0,0 +1,332 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceDecorator;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * A macro benchmark of the game engine: runs the real dealer, players and table headless (no user interface, no table
+ * delays, no freezes) with scripted players that claim sets found on the table as fast as the engine lets them.
+ * Games are played back to back until the measurement time is up. A scripted player follows every claim with a marker
+ * key press and waits for the player to reach it (or for the dealer to clear it), so it knows the claim was checked,
+ * or never made (e.g. because a card was replaced meanwhile), without any timeout. While the table has no set, the
+ * scripted players wait for the dealer to place cards, so they take no CPU time from the engine.
+ * Reports the claim throughput, the claim latency (from the key press completing a claim until Dealer.checkSet
+ * returns), the process CPU time per claim, and how many claims were legal, illegal, or stale (dropped unchecked by
+ * the dealer since another claim took a card first).
+ * Usage: java -cp benchmarks.jar bguspl.set.ex.EngineThroughput [players (4)] [seconds (10)] [warmup seconds (3)]
+ */
+public class EngineThroughput {
+
+    private final Config config;
+    private final Util util;
+    private final Logger logger;
+
+    /**
+     * The time each player pressed the key completing its pending claim (0 if none).
+     */
+    private final AtomicLongArray claimStart;
+
+    /**
+     * The round of the marker each script waits for (0 if none). A script presses the key -round after its claim: the
+     * player thread only reaches it once the keys before it were handled, including the claim's check and freeze.
+     */
+    private final AtomicIntegerArray markers;
+
+    /**
+     * Released once per marker reached (or cleared from the player's queue), per player.
+     */
+    private final Semaphore[] markersReached;
+
+    /**
+     * The claim latencies and verdicts while measuring (written by the dealer thread only).
+     */
+    private long[] latencies = new long[1 << 16];
+    private int claims;
+    private int legalClaims;
+    private int staleClaims;
+    private volatile boolean measuring;
+
+    private EngineThroughput(int players) {
+        logger = Logger.getLogger(EngineThroughput.class.getName());
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", Integer.toString(players));
+        properties.put("ComputerPlayers", "0");
+        properties.put("Hints", "False");
+        properties.put("TurnTimeoutSeconds", "0"); // tables without sets are reshuffled at once
+        properties.put("TurnTimeoutWarningSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        config = new Config(logger, properties);
+        util = new UtilImpl(config, logger);
+        claimStart = new AtomicLongArray(players);
+        markers = new AtomicIntegerArray(players);
+        markersReached = new Semaphore[players];
+        Arrays.setAll(markersReached, i -> new Semaphore(0));
+    }
+
+    /**
+     * A dealer reporting every verdict to the benchmark.
+     */
+    private class InstrumentedDealer extends Dealer {
+
+        private final Table table;
+        private final Player[] players;
+
+        private InstrumentedDealer(Env env, Table table, Player[] players) {
+            super(env, table, players);
+            this.table = table;
+            this.players = players;
+        }
+
+        @Override
+        public boolean checkSet(Claim claim) {
+            boolean stale = isStale(claim);
+            boolean legal = super.checkSet(claim);
+            long start = claimStart.getAndSet(claim.playerId, 0);
+            if (measuring && start != 0) record(System.nanoTime() - start, legal, stale);
+            return legal;
+        }
+
+        /**
+         * @return - true iff the dealer will drop the claim without checking it (as Dealer.checkSet decides).
+         */
+        private boolean isStale(Claim claim) {
+            if (claim.cards.length != config.featureSize) return true;
+            Player player = players[claim.playerId];
+            for (int card : claim.cards)
+                if (table.cardToSlot[card] == Table.NONE || !player.hasChosen(card)) return true;
+            return false;
+        }
+    }
+
+    /**
+     * A table waking the scripted players waiting for a set whenever a card is placed.
+     */
+    private static class WatchedTable extends Table {
+
+        private WatchedTable(Env env) {
+            super(env);
+        }
+
+        @Override
+        public void placeCard(int card, int slot) {
+            super.placeCard(card, slot);
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Waits until there is a legal set on the table.
+         *
+         * @return - the legal sets on the table.
+         */
+        private synchronized int[][] awaitSets() throws InterruptedException {
+            int[][] sets;
+            while ((sets = setIndex.sets()).length == 0)
+                wait();
+            return sets;
+        }
+    }
+
+    /**
+     * A player reporting the markers it reaches to its script.
+     */
+    private class ScriptedPlayer extends Player {
+
+        private ScriptedPlayer(Env env, Dealer dealer, Table table, int id) {
+            super(env, dealer, table, id, true);
+        }
+
+        @Override
+        public void press(int slot) {
+            if (slot >= 0) super.press(slot);
+            else if (markers.compareAndSet(id, -slot, 0)) markersReached[id].release();
+        }
+
+        @Override
+        public void point() {
+            super.point();
+            releaseDroppedMarker();
+        }
+
+        @Override
+        public void penalty() {
+            super.penalty();
+            releaseDroppedMarker();
+        }
+
+        @Override
+        public void burnCards(int[] cards) {
+            super.burnCards(cards);
+            releaseDroppedMarker();
+        }
+
+        /**
+         * Releases the script if the player cleared its queue with the marker in it (it does after a verdict, e.g.
+         * when the script already pressed its next claim, and when cards are burned).
+         */
+        private void releaseDroppedMarker() {
+            int round = markers.get(id);
+            if (round != 0 && !incomingActions.contains(-round) && markers.compareAndSet(id, round, 0))
+                markersReached[id].release();
+        }
+    }
+
+    private void record(long latency, boolean legal, boolean stale) {
+        if (claims == latencies.length) latencies = Arrays.copyOf(latencies, claims * 2);
+        latencies[claims++] = latency;
+        if (legal) ++legalClaims;
+        if (stale) ++staleClaims;
+    }
+
+    /**
+     * Plays games back to back until the deadline.
+     *
+     * @return - the number of games started.
+     */
+    private int play(long deadline) throws InterruptedException {
+        int games = 0;
+        while (System.nanoTime() < deadline) {
+            ++games;
+            Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util);
+            WatchedTable table = new WatchedTable(env);
+            Player[] players = new Player[config.players];
+            Dealer dealer = new InstrumentedDealer(env, table, players);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new ScriptedPlayer(env, dealer, table, i);
+
+            Thread dealerThread = new Thread(dealer, "dealer");
+            dealerThread.start();
+            List<Thread> scripts = new ArrayList<>();
+            for (Player player : players) {
+                Thread script = new Thread(() -> script(player, table, dealer, dealerThread, deadline), "script-" + player.id);
+                script.start();
+                scripts.add(script);
+            }
+
+            while (dealerThread.isAlive() && System.nanoTime() < deadline)
+                dealerThread.join(10);
+            dealer.terminate();
+            dealerThread.join(); // the dealer joins the player threads
+            for (Thread script : scripts) {
+                script.interrupt(); // its player may have terminated before reaching the marker
+                script.join();
+            }
+        }
+        return games;
+    }
+
+    /**
+     * The main loop of a scripted player: picks a random set on the table and presses its slots.
+     */
+    private void script(Player player, WatchedTable table, Dealer dealer, Thread dealerThread, long deadline) {
+        Random random = new Random(player.id);
+        int round = 0;
+        while (dealerThread.isAlive() && System.nanoTime() < deadline) {
+            try {
+                int[] slots = pickSet(table, random);
+                if (slots == null) continue; // a card of the set was just removed
+
+                // take back the tokens left from a claim that lost to another player
+                for (int card : player.chosenCards.toArray()) {
+                    int slot = table.cardToSlot[card];
+                    if (slot != Table.NONE) press(player, slot);
+                }
+
+                markers.set(player.id, ++round);
+                for (int i = 0; i < slots.length - 1; ++i)
+                    press(player, slots[i]);
+                claimStart.set(player.id, System.nanoTime());
+                press(player, slots[slots.length - 1]);
+                press(player, -round);
+                markersReached[player.id].acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            claimStart.set(player.id, 0);
+        }
+    }
+
+    /**
+     * Presses a key, waiting for room in the player's queue (keyPressed drops key presses when the queue is full).
+     */
+    private static void press(Player player, int slot) throws InterruptedException {
+        player.incomingActions.put(slot);
+    }
+
+    /**
+     * Waits for a legal set on the table and picks one at random.
+     *
+     * @return - the slots of the set, or null if one of its cards was removed meanwhile.
+     */
+    private static int[] pickSet(WatchedTable table, Random random) throws InterruptedException {
+        int[][] sets = table.awaitSets();
+        int[] set = sets[random.nextInt(sets.length)];
+        int[] slots = new int[set.length];
+        for (int i = 0; i < set.length; ++i) {
+            int slot = table.cardToSlot[set[i]];
+            if (slot == Table.NONE) return null;
+            slots[i] = slot;
+        }
+        return slots;
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        return -1;
+    }
+
+    private static double percentileMicros(long[] sorted, int count, double percentile) {
+        if (count == 0) return Double.NaN;
+        int index = (int) Math.min(count - 1, Math.ceil(percentile * count) - 1);
+        return sorted[Math.max(index, 0)] / 1000.0;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        double warmupSeconds = args.length > 2 ? Double.parseDouble(args[2]) : 3;
+
+        EngineThroughput benchmark = new EngineThroughput(players);
+        benchmark.play(System.nanoTime() + (long) (warmupSeconds * 1e9));
+
+        benchmark.measuring = true;
+        long cpuStart = processCpuNanos(), start = System.nanoTime();
+        int games = benchmark.play(start + (long) (seconds * 1e9));
+        long elapsed = System.nanoTime() - start, cpu = processCpuNanos() - cpuStart;
+        benchmark.measuring = false;
+
+        int claims = benchmark.claims;
+        long[] latencies = Arrays.copyOf(benchmark.latencies, claims);
+        Arrays.sort(latencies);
+        int illegalClaims = claims - benchmark.legalClaims - benchmark.staleClaims;
+        System.out.printf("players: %d, games: %d, claims: %d (%d legal, %d illegal, %d stale)%n",
+                players, games, claims, benchmark.legalClaims, illegalClaims, benchmark.staleClaims);
+        System.out.printf("throughput: %.1f claims/sec%n", claims / (elapsed / 1e9));
+        System.out.printf("claim latency: p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+                percentileMicros(latencies, claims, 0.5), percentileMicros(latencies, claims, 0.99),
+                percentileMicros(latencies, claims, 0.999), percentileMicros(latencies, claims, 1));
+        if (cpuStart >= 0 && claims > 0)
+            System.out.printf("cpu time: %.1f us/claim%n", cpu / 1000.0 / claims);
+    }
+}
@@ -0,0 +1,254 @@
+package bguspl.set;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A log handler that writes to a file in the background: publishing a record only puts it in a lock-free ring
+ * buffer, and a writer thread formats the records and writes them to the file. Records published while the buffer is
+ * full are dropped (and counted in the log), so the logging threads never block.
+ * The log file is rotated when it grows beyond a size limit, and on startup: the file is compressed to file.1.gz,
+ * older files are shifted to file.2.gz, file.3.gz etc., and only the configured number of compressed files is kept.
+ */
+public final class AsyncLogHandler extends Handler {
+
+    public static final long DEFAULT_MAX_BYTES = 10L << 20;
+    public static final int DEFAULT_FILE_COUNT = 5;
+
+    /**
+     * How long the writer sleeps when the buffer is empty.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+
+    private final Path file;
+    private final MpscRingBuffer<LogRecord> records;
+
+    /**
+     * The number of records dropped because the buffer was full, since the writer last reported them.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * The number of times the writer emptied the buffer (used to wait for a flush).
+     */
+    private final AtomicLong drains = new AtomicLong();
+
+    private volatile long maxBytes;
+    private volatile int fileCount;
+    private volatile boolean closed;
+
+    private final Thread writer;
+
+    // owned by the writer thread
+
+    private OutputStream out;
+    private long size;
+
+    /**
+     * Starts writing to the log file (rotating the file of the previous run, if there is one).
+     *
+     * @param file      - the log file.
+     * @param capacity  - the most records waiting to be written.
+     * @param maxBytes  - the size beyond which the file is rotated (0 for no limit).
+     * @param fileCount - the number of rotated files to keep.
+     */
+    public AsyncLogHandler(Path file, int capacity, long maxBytes, int fileCount) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.fileCount = fileCount;
+        records = new MpscRingBuffer<>(capacity);
+        if (Files.exists(file)) rotate();
+        open();
+
+        writer = new Thread(this::write, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Changes the size beyond which the file is rotated, and the number of rotated files to keep.
+     */
+    public void setLimits(long maxBytes, int fileCount) {
+        this.maxBytes = maxBytes;
+        this.fileCount = fileCount;
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        if (!records.offer(record)) dropped.increment();
+    }
+
+    /**
+     * Waits until the records published so far are written to the file.
+     */
+    @Override
+    public void flush() {
+        // the drain in progress (if any) may have missed the latest records, so wait for the one after it
+        long target = drains.get() + 2;
+        LockSupport.unpark(writer);
+        while (drains.get() < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The writer thread's loop.
+     */
+    private void write() {
+        while (!closed) {
+            boolean wrote = false;
+            for (LogRecord record = records.poll(); record != null; record = records.poll()) {
+                write(format(record));
+                wrote = true;
+            }
+            long lost = dropped.sumThenReset();
+            if (lost > 0) write(lost + " log records were dropped (the log buffer was full)" + System.lineSeparator());
+            try {
+                if (wrote && out != null) out.flush();
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.FLUSH_FAILURE);
+            }
+            drains.incrementAndGet();
+            if (!wrote) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        try {
+            if (out != null) out.close();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    private String format(LogRecord record) {
+        try {
+            return getFormatter().format(record);
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return "";
+        }
+    }
+
+    private void write(String text) {
+        if (out == null && !reopen()) return;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(bytes);
+            size += bytes.length;
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+        if (maxBytes > 0 && size >= maxBytes) rollOver();
+    }
+
+    /**
+     * Rotates the full log file and opens a new one. If the rotation fails, the log file is reopened (appending to it)
+     * and the rotation is retried after another maxBytes.
+     */
+    private void rollOver() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+        out = null;
+        boolean rotated = true;
+        try {
+            rotate();
+        } catch (IOException e) {
+            rotated = false;
+            reportError(null, e, ErrorManager.GENERIC_FAILURE);
+        }
+        if (reopen() && !rotated) size = 0;
+    }
+
+    /**
+     * Opens the log file for appending after it was closed.
+     *
+     * @return - true iff the file is open (otherwise the next record tries again).
+     */
+    private boolean reopen() {
+        try {
+            open();
+            return true;
+        } catch (IOException e) {
+            out = null;
+            reportError(null, e, ErrorManager.OPEN_FAILURE);
+            return false;
+        }
+    }
+
+    private void open() throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        size = Files.size(file);
+    }
+
+    /**
+     * @return - the path of the rotated file with the given index.
+     */
+    private Path rotated(int index) {
+        return Paths.get(file + "." + index + ".gz");
+    }
+
+    /**
+     * Compresses the (closed) log file to file.1.gz, after shifting the older files and deleting the oldest one.
+     * The compressed file is written to a temporary file first, so an interrupted rotation keeps the log file.
+     */
+    private void rotate() throws IOException {
+        int count = fileCount;
+        for (int index = Math.max(count, 1); Files.exists(rotated(index)); ++index)
+            Files.delete(rotated(index)); // also drops the files kept under a larger count
+        for (int index = count - 1; index >= 1; --index)
+            if (Files.exists(rotated(index))) move(rotated(index), rotated(index + 1));
+        if (count > 0) {
+            Path temporary = Paths.get(rotated(1) + ".tmp");
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(temporary), COPY_BUFFER_BYTES)) {
+                byte[] buffer = new byte[COPY_BUFFER_BYTES];
+                for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+                    gzip.write(buffer, 0, read);
+            }
+            move(temporary, rotated(1));
+        }
+        Files.delete(file);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package bguspl.set;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * The card images, scaled to the size of a cell on the screen.
+ * The images are loaded in the background, in parallel, as soon as the loader is opened; an image needed before its
+ * turn (e.g. a card dealt to the table) is loaded right away by the thread asking for it.
+ * The decoded, scaled pixels of the whole deck are cached in a binary file in config.cacheDirectory, and memory-mapped
+ * on later runs (with the same deck and cell size), so the images are copied from the file instead of decoded.
+ * File layout: a header of HEADER_INTS ints (magic, version, featureCount, featureSize, width, height), followed by a
+ * flag for every card (1 if it has an image) and the empty card (always 1), followed by width * height ARGB pixels for
+ * every card and the empty card (the pixels of cards without an image are zero).
+ */
+final class CardImages {
+
+    private static final int MAGIC = 0x53455449; // "SETI"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+    private static final int HEADER_BYTES = HEADER_INTS * Integer.BYTES;
+
+    /**
+     * The largest cache file to write (bigger decks or cells are always decoded).
+     */
+    private static final long MAX_CACHE_BYTES = 1L << 30;
+
+    private static final String EMPTY_CARD = "cards/empty_card.png";
+
+    private final Config config;
+    private final Logger logger;
+    private final int width;
+    private final int height;
+
+    /**
+     * The number of images: a card image for every card in the deck, followed by the empty card image.
+     */
+    private final int count;
+
+    /**
+     * The path of the cache file, or null if there is none.
+     */
+    private final Path cachePath;
+
+    /**
+     * The cache file mapped read-only, or null if it was missing or stale.
+     */
+    private final MappedByteBuffer cache;
+
+    /**
+     * The loading of every image (FutureTask.run only loads an image once, whichever thread runs it first).
+     */
+    private final FutureTask<BufferedImage>[] images;
+
+    /**
+     * Loads the images in the background.
+     */
+    private final ExecutorService loaders;
+
+    /**
+     * The number of images not loaded yet.
+     */
+    private final AtomicInteger remaining;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CardImages(Config config, Logger logger, int width, int height) {
+        this.config = config;
+        this.logger = logger;
+        this.width = width;
+        this.height = height;
+        count = config.deckSize + 1;
+
+        long cacheBytes = HEADER_BYTES + (long) count * Integer.BYTES + (long) count * width * height * Integer.BYTES;
+        cachePath = config.cacheDirectory.isEmpty() || cacheBytes > MAX_CACHE_BYTES ? null
+                : Paths.get(config.cacheDirectory, "card-images-" + config.featureCount + "x" + config.featureSize
+                + "-" + width + "x" + height + ".bin");
+        cache = cachePath == null ? null : map(cacheBytes);
+
+        remaining = new AtomicInteger(count);
+        images = new FutureTask[count];
+        for (int i = 0; i < count; ++i) {
+            int image = i;
+            images[i] = new FutureTask<BufferedImage>(() -> cache != null ? copy(image) : decode(image)) {
+                @Override
+                protected void done() {
+                    if (remaining.decrementAndGet() == 0) finish();
+                }
+            };
+        }
+        AtomicInteger threads = new AtomicInteger();
+        loaders = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), target -> {
+            Thread thread = new Thread(target, "card-images-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts loading the images of the configured deck in the background.
+     *
+     * @param config - the game configuration.
+     * @param width  - the width of a cell on the screen.
+     * @param height - the height of a cell on the screen.
+     * @param logger - the logger to report failures to.
+     * @return - the images.
+     */
+    static CardImages open(Config config, int width, int height, Logger logger) {
+        CardImages cardImages = new CardImages(config, logger, width, height);
+        cardImages.images[cardImages.count - 1].run(); // the empty card is shown right away
+        for (FutureTask<BufferedImage> image : cardImages.images)
+            cardImages.loaders.execute(image);
+        return cardImages;
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - the image of the card, or null if the card has no image. Waits for the image to load, loading it on
+     * the calling thread if its loading did not start yet.
+     */
+    BufferedImage card(int card) {
+        FutureTask<BufferedImage> image = images[card];
+        image.run();
+        try {
+            return image.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.severe("cannot load the image of card " + card + ": " + e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * @return - the image of an empty slot.
+     */
+    BufferedImage emptyCard() {
+        return card(count - 1);
+    }
+
+    /**
+     * Waits until all the images are loaded (and, if they were decoded, the cache file was written).
+     */
+    void awaitLoaded() throws InterruptedException {
+        while (!loaders.isTerminated())
+            loaders.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private String resourceName(int image) {
+        if (image == count - 1) return EMPTY_CARD;
+        return "cards/" + UserInterfaceSwing.intInBaseToPaddedString(image, config.featureCount, config.featureSize) + ".png";
+    }
+
+    /**
+     * @return - the image decoded from its resource and scaled to the cell size, or null if it has no resource.
+     */
+    private BufferedImage decode(int image) throws IOException {
+        URL resource = getClass().getClassLoader().getResource(resourceName(image));
+        if (resource == null) return null;
+        BufferedImage original = ImageIO.read(resource);
+        if (original == null) throw new IOException("unsupported image format " + resource);
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * @return - the image copied from the cache file, or null if the card has no image.
+     */
+    private BufferedImage copy(int image) {
+        if (cache.getInt(HEADER_BYTES + image * Integer.BYTES) == 0) return null;
+        ByteBuffer view = cache.duplicate();
+        view.position(HEADER_BYTES + count * Integer.BYTES + image * width * height * Integer.BYTES);
+        int[] pixels = new int[width * height];
+        view.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(pixels);
+        BufferedImage copy = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        copy.setRGB(0, 0, width, height, pixels, 0, width);
+        return copy;
+    }
+
+    /**
+     * Called once all the images are loaded: writes the cache file if the images were decoded.
+     */
+    private void finish() {
+        try {
+            loaders.execute(() -> {
+                try {
+                    if (cachePath != null && cache == null) write();
+                } catch (IOException e) {
+                    logger.severe("cannot write the card images cache " + cachePath + ": " + e);
+                } finally {
+                    loaders.shutdown();
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // already finished
+        }
+    }
+
+    /**
+     * @return - the cache file mapped read-only, or null if it is missing, stale or cannot be mapped.
+     */
+    private MappedByteBuffer map(long cacheBytes) {
+        try {
+            if (!Files.isRegularFile(cachePath) || Files.size(cachePath) != cacheBytes) return null;
+            try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, cacheBytes);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                boolean valid = buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION
+                        && buffer.getInt(8) == config.featureCount && buffer.getInt(12) == config.featureSize
+                        && buffer.getInt(16) == width && buffer.getInt(20) == height;
+                return valid ? buffer : null;
+            }
+        } catch (IOException e) {
+            logger.severe("cannot read the card images cache " + cachePath + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cache file to a temporary file and moves it into place, so a concurrent or interrupted run never maps
+     * a partially written file.
+     */
+    private void write() throws IOException {
+        Path directory = cachePath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "card-images", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BufferedImage[] loaded = new BufferedImage[count];
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(config.featureCount).putInt(config.featureSize)
+                        .putInt(width).putInt(height);
+                for (int image = 0; image < count; ++image) {
+                    loaded[image] = card(image);
+                    header.putInt(loaded[image] != null ? 1 : 0);
+                }
+                write(channel, header);
+
+                ByteBuffer chunk = ByteBuffer.allocateDirect(width * height * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                int[] pixels = new int[width * height];
+                for (BufferedImage image : loaded) {
+                    if (image != null) image.getRGB(0, 0, width, height, pixels, 0, width);
+                    else Arrays.fill(pixels, 0);
+                    chunk.asIntBuffer().put(pixels);
+                    chunk.position(chunk.capacity());
+                    write(channel, chunk);
+                }
+            }
+            try {
+                Files.move(temporary, cachePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, cachePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
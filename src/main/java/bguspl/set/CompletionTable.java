@@ -0,0 +1,150 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+/**
+ * A table of the card completing every pair of cards to a legal set (for sets of 3 cards, i.e. featureSize 3).
+ * The table is generated once per deck into a binary file in config.cacheDirectory, and memory-mapped read-only on
+ * later runs, so it loads instantly and lives off the Java heap.
+ * File layout: a header of HEADER_INTS ints (magic, version, featureCount, featureSize, entry width in bytes), followed
+ * by the completing card of every pair of cards a < b, in lexicographic order of the pairs.
+ */
+final class CompletionTable {
+
+    private static final int MAGIC = 0x53455443; // "SETC"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 5;
+    private static final int HEADER_BYTES = HEADER_INTS * Integer.BYTES;
+
+    /**
+     * The largest table to map (bigger decks compute the completions arithmetically).
+     */
+    private static final long MAX_TABLE_BYTES = 1L << 28;
+
+    /**
+     * The number of entries generated per write.
+     */
+    private static final int WRITE_CHUNK = 1 << 16;
+
+    private final MappedByteBuffer entries;
+    private final int deckSize;
+
+    /**
+     * The width of an entry: 2 bytes if card ids fit in a char, 4 otherwise.
+     */
+    private final int entryBytes;
+
+    private CompletionTable(MappedByteBuffer entries, int deckSize, int entryBytes) {
+        this.entries = entries;
+        this.deckSize = deckSize;
+        this.entryBytes = entryBytes;
+    }
+
+    /**
+     * Opens the completion table of the configured deck, generating its file first if it is missing or stale.
+     *
+     * @param config - the game configuration.
+     * @param util   - used to compute the completions when generating the table.
+     * @param logger - the logger to report failures to.
+     * @return - the table, or null if the configuration has no use for one or it cannot be opened.
+     */
+    static CompletionTable open(Config config, UtilImpl util, Logger logger) {
+        if (config.featureSize != 3 || config.cacheDirectory.isEmpty()) return null;
+
+        int entryBytes = config.deckSize <= Character.MAX_VALUE + 1 ? Character.BYTES : Integer.BYTES;
+        long tableBytes = HEADER_BYTES + pairs(config.deckSize) * entryBytes;
+        if (tableBytes > MAX_TABLE_BYTES) return null;
+
+        Path path = Paths.get(config.cacheDirectory, "completions-" + config.featureCount + "x" + config.featureSize + ".bin");
+        try {
+            MappedByteBuffer buffer = map(path, tableBytes);
+            if (buffer == null || !hasHeader(buffer, config, entryBytes)) {
+                generate(path, config, util, entryBytes);
+                buffer = map(path, tableBytes);
+            }
+            return new CompletionTable(buffer, config.deckSize, entryBytes);
+        } catch (IOException e) {
+            logger.severe("cannot use the pair completion table " + path + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @return - the card completing the two given (different) cards to a legal set.
+     */
+    int complete(int first, int second) {
+        int a = Math.min(first, second), b = Math.max(first, second);
+        long offset = HEADER_BYTES + ((long) a * (2L * deckSize - a - 1) / 2 + (b - a - 1)) * entryBytes;
+        return entryBytes == Character.BYTES ? entries.getChar((int) offset) : entries.getInt((int) offset);
+    }
+
+    private static long pairs(int deckSize) {
+        return (long) deckSize * (deckSize - 1) / 2;
+    }
+
+    /**
+     * @return - the file mapped read-only, or null if it is missing or does not have the expected size.
+     */
+    private static MappedByteBuffer map(Path path, long tableBytes) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) != tableBytes) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, tableBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static boolean hasHeader(ByteBuffer buffer, Config config, int entryBytes) {
+        return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == config.featureCount
+                && buffer.getInt(12) == config.featureSize && buffer.getInt(16) == entryBytes;
+    }
+
+    /**
+     * Writes the table to a temporary file and moves it into place, so a concurrent or interrupted run never maps a
+     * partially written table.
+     */
+    private static void generate(Path path, Config config, UtilImpl util, int entryBytes) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), "completions", ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(WRITE_CHUNK * entryBytes).order(ByteOrder.LITTLE_ENDIAN);
+            chunk.putInt(MAGIC).putInt(VERSION).putInt(config.featureCount).putInt(config.featureSize).putInt(entryBytes);
+
+            int[] pair = new int[2];
+            for (pair[0] = 0; pair[0] < config.deckSize; ++pair[0])
+                for (pair[1] = pair[0] + 1; pair[1] < config.deckSize; ++pair[1]) {
+                    if (chunk.remaining() < entryBytes) write(channel, chunk);
+                    int card = util.completeSet(pair, 2);
+                    if (entryBytes == Character.BYTES) chunk.putChar((char) card);
+                    else chunk.putInt(card);
+                }
+            write(channel, chunk);
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer chunk) throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining())
+            channel.write(chunk);
+        chunk.clear();
+    }
+}
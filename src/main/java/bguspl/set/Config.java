@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
@@ -15,6 +16,16 @@ import java.util.logging.Logger;
  */
 public class Config {
 
+    /**
+     * The size (in bytes) beyond which the log file is rotated
+     */
+    public final long logFileMaxBytes;
+
+    /**
+     * The number of rotated (compressed) log files to keep
+     */
+    public final int logFileCount;
+
     /**
      * Random spin cycles for Config::randomSpin (for debugging / testing)
      */
@@ -36,6 +47,22 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The number of threads used to search for sets (1 means searching on the calling thread only)
+     */
+    public final int setSearchParallelism;
+
+    /**
+     * Whether parallel set searches must find the same sets, in the same order, as sequential ones
+     */
+    public final boolean setSearchDeterministic;
+
+    /**
+     * The directory to keep precomputed data files in, e.g. the pair completion table and the scaled card images
+     * (empty to keep none)
+     */
+    public final String cacheDirectory;
+
     /**
      * The number of human players in the game.
      */
@@ -86,6 +113,41 @@ public class Config {
      */
     public final long endGamePauseMillies;
 
+    /**
+     * The number of key presses a player can queue up (further key presses are ignored until the player catches up)
+     */
+    public final int actionQueueCapacity;
+
+    /**
+     * The distribution of the time computer players think between key presses (fixed, uniform or exponential)
+     */
+    public final String botThinkTimeDistribution;
+
+    /**
+     * The mean number of milliseconds computer players think between key presses
+     */
+    public final long botThinkTimeMillis;
+
+    /**
+     * The number of threads driving all the computer players
+     */
+    public final int botSchedulerThreads;
+
+    /**
+     * How computer players choose the keys they press (random: random slots, sets: the legal sets on the table)
+     */
+    public final String botStrategy;
+
+    /**
+     * The probability that a computer player using the sets strategy claims random cards instead of a legal set
+     */
+    public final double botErrorRate;
+
+    /**
+     * Whether to run the dealer, player and computer player threads as virtual threads (requires Java 21 or later)
+     */
+    public final boolean virtualThreads;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -132,6 +194,12 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * The number of times per second the user interface applies the updates posted by the game threads (and the
+     * countdown and freeze timers are refreshed)
+     */
+    public final int uiFrameRate;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -155,7 +223,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -176,16 +244,48 @@ public class Config {
         return properties;
     }
 
+    /**
+     * Keeps the precomputed data files next to the configuration file by default.
+     *
+     * @param properties     - the configuration file contents.
+     * @param configFilename - the name of the configuration file.
+     * @return - the properties object, with a default cache directory (if the configuration file has a name).
+     */
+    static Properties withDefaultCacheDirectory(Properties properties, String configFilename) {
+        if (configFilename != null && !configFilename.isEmpty()) {
+            Path directory = Paths.get(configFilename).toAbsolutePath().getParent();
+            if (directory != null) properties.putIfAbsent("CacheDirectory", directory.toString());
+        }
+        return properties;
+    }
+
+    /**
+     * @return - the size beyond which the log file is rotated (0 for no limit).
+     */
+    static long logFileMaxBytes(Properties properties) {
+        return Long.parseLong(properties.getProperty("LogFileMaxBytes", Long.toString(AsyncLogHandler.DEFAULT_MAX_BYTES)));
+    }
+
+    /**
+     * @return - the number of rotated log files to keep.
+     */
+    static int logFileCount(Properties properties) {
+        return Math.max(0, Integer.parseInt(properties.getProperty("LogFileCount", Integer.toString(AsyncLogHandler.DEFAULT_FILE_COUNT))));
+    }
+
     public Config(Logger logger, String configFilename) {
-        this(logger, loadProperties(configFilename, logger));
+        this(logger, withDefaultCacheDirectory(loadProperties(configFilename, logger), configFilename));
     }
 
     public Config(Logger logger, Properties properties) {
 
         // logger settings
-        Level logLevel = Level.parse(properties.getProperty("LogLevel", "ALL"));
+        Level logLevel = EventLevel.parse(properties.getProperty("LogLevel", "ALL"));
         String logFormat = properties.getProperty("LogFormat", "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
         Main.setLoggerLevelAndFormat(logger, logLevel, logFormat);
+        logFileMaxBytes = logFileMaxBytes(properties);
+        logFileCount = logFileCount(properties);
+        Main.setLogFileLimits(logger, logFileMaxBytes, logFileCount);
 
         // for debugging
         randomSpinMin = Long.parseLong(properties.getProperty("RandomSpinMin", "0"));
@@ -197,6 +297,10 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        int parallelism = Integer.parseInt(properties.getProperty("SetSearchParallelism", "1"));
+        setSearchParallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        setSearchDeterministic = Boolean.parseBoolean(properties.getProperty("SetSearchDeterministic", "False"));
+        cacheDirectory = properties.getProperty("CacheDirectory", "").trim();
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -210,6 +314,13 @@ public class Config {
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
+        actionQueueCapacity = Math.max(1, Integer.parseInt(properties.getProperty("ActionQueueCapacity", "3")));
+        botThinkTimeDistribution = properties.getProperty("BotThinkTimeDistribution", "Fixed");
+        botThinkTimeMillis = (long) (Double.parseDouble(properties.getProperty("BotThinkTimeSeconds", "0.1")) * 1000.0);
+        botSchedulerThreads = Math.max(1, Integer.parseInt(properties.getProperty("BotSchedulerThreads", "1")));
+        botStrategy = properties.getProperty("BotStrategy", "Random");
+        botErrorRate = Double.parseDouble(properties.getProperty("BotErrorRate", "0.1"));
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
 
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
@@ -224,6 +335,7 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        uiFrameRate = Math.max(1, Integer.parseInt(properties.getProperty("UiFrameRate", "60")));
 
         // keyboard input data
         playerKeys = new int[players][rows * columns];
@@ -0,0 +1,29 @@
+package bguspl.set;
+
+import java.util.logging.Level;
+
+/**
+ * The log level of the frequent game events: key presses and user interface updates.
+ * It lies between FINE and INFO, so the events can be turned off (e.g. LogLevel=INFO) without losing the rest of the
+ * log; when they are off, logging an event costs a single level check.
+ */
+public final class EventLevel extends Level {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final Level EVENT = new EventLevel("EVENT", 600);
+
+    private EventLevel(String name, int value) {
+        super(name, value);
+    }
+
+    /**
+     * Parses a level name or value, including EVENT (which is only known once this class is loaded).
+     *
+     * @param name - the level name or value.
+     * @return - the level.
+     */
+    public static Level parse(String name) {
+        return Level.parse(name);
+    }
+}
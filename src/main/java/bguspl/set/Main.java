@@ -6,10 +6,10 @@ import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Date;
+import java.util.Properties;
 import java.util.logging.*;
 
 /**
@@ -20,6 +20,11 @@ public class Main {
     private static Dealer dealer;
     private static Thread mainThread;
 
+    /**
+     * The most log records waiting to be written to the log file.
+     */
+    private static final int LOG_BUFFER_CAPACITY = 1 << 14;
+
     private static boolean xButtonPressed = false;
     private static Logger logger;
 
@@ -33,7 +38,8 @@ public class Main {
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
-     * @param args - unused.
+     * @param args - "--simulate [games] [--paced]" to play games headless with computer players only (see Simulation),
+     *             otherwise unused.
      */
     public static void main(String[] args) {
 
@@ -41,14 +47,22 @@ public class Main {
 
         // create the game environment objects
         logger = initLogger();
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            boolean paced = args[args.length - 1].equals("--paced");
+            int games = args.length > 1 && !args[1].equals("--paced") ? Integer.parseInt(args[1]) : 1000;
+            Simulation.run(logger, games, paced);
+            return;
+        }
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+        Util util = new UtilImpl(config, logger);
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
         try {
-            ui = new UserInterfaceSwing(logger, config, players);
+            UserInterfaceDispatcher dispatcher = new UserInterfaceDispatcher(config, new UserInterfaceSwing(logger, config, players));
+            dispatcher.start();
+            ui = dispatcher;
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
@@ -66,12 +80,12 @@ public class Main {
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
         // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        Thread dealerThread = Threads.newThread(env, dealer, "dealer");
+        Threads.startWithLog(dealerThread, logger);
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
+            Threads.joinWithLog(dealerThread, logger);
             if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
@@ -85,13 +99,17 @@ public class Main {
 
     private static Logger initLogger() {
 
-        //just to make our log file nicer :)
-        SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        // the log of the previous run is rotated with the configured limits, so they are read before the configuration
+        // (which logs any problem reading the file, once there is a log)
+        Logger silent = Logger.getAnonymousLogger();
+        silent.setUseParentHandlers(false);
+        Properties properties = Config.loadProperties("config.properties", silent);
+        Handler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            handler = new AsyncLogHandler(Paths.get("logs", "set.log"), LOG_BUFFER_CAPACITY,
+                    Config.logFileMaxBytes(properties), Config.logFileCount(properties));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -108,13 +126,51 @@ public class Main {
         Handler[] handlers = logger.getHandlers();
         if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
             // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
+            // records are formatted by the log writer thread, not by the threads logging them
             @Override
-            public synchronized String format(LogRecord lr) {
+            public String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
+                        lr.getLevel().getLocalizedName(), formatMessage(lr)
                 );
             }
+
+            /**
+             * Replaces {0} to {99} with the record's parameters (unlike MessageFormat, numbers are not grouped).
+             * The message is scanned once: a brace is only followed by up to 2 digits and the closing brace.
+             */
+            @Override
+            public String formatMessage(LogRecord lr) {
+                String message = lr.getMessage();
+                Object[] parameters = lr.getParameters();
+                if (message == null || parameters == null || parameters.length == 0) return message;
+                int length = message.length();
+                StringBuilder text = new StringBuilder(length + 16 * parameters.length);
+                for (int i = 0; i < length; ++i) {
+                    char c = message.charAt(i);
+                    if (c == '{') {
+                        int index = 0, end = i + 1;
+                        while (end < length && end - i <= 2 && message.charAt(end) >= '0' && message.charAt(end) <= '9')
+                            index = index * 10 + message.charAt(end++) - '0';
+                        if (end > i + 1 && end < length && message.charAt(end) == '}' && index < parameters.length) {
+                            text.append(parameters[index]);
+                            i = end;
+                            continue;
+                        }
+                    }
+                    text.append(c);
+                }
+                return text.toString();
+            }
         }));
         logger.setLevel(level);
     }
+
+    /**
+     * Sets the size beyond which the log file is rotated, and the number of rotated (compressed) log files to keep.
+     */
+    public static void setLogFileLimits(Logger logger, long maxBytes, int fileCount) {
+        Handler[] handlers = logger.getHandlers();
+        if (handlers != null) for (Handler h : handlers)
+            if (h instanceof AsyncLogHandler) ((AsyncLogHandler) h).setLimits(maxBytes, fileCount);
+    }
 }
@@ -0,0 +1,73 @@
+package bguspl.set;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An unbounded lock-free multi-producer single-consumer FIFO queue (a linked list with an atomically swapped tail).
+ * Any thread may offer elements; only a single thread (the consumer) may poll them. Elements offered by the same
+ * thread are polled in the order they were offered, and elements offered by different threads in the order their
+ * offers swapped the tail.
+ * An element is visible to the consumer once the offer returns (the offering thread links it after the swap).
+ *
+ * @param <T> - the type of the elements.
+ */
+public final class MpscQueue<T> {
+
+    private static final class Node<T> {
+        private T value;
+        private volatile Node<T> next;
+
+        private Node(T value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * The last node offered (swapped by the producers).
+     */
+    private final AtomicReference<Node<T>> tail;
+
+    /**
+     * The node before the next element to poll (owned by the consumer).
+     */
+    private Node<T> head;
+
+    public MpscQueue() {
+        head = new Node<>(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Adds an element at the end of the queue. May be called by any thread.
+     *
+     * @param value - the element to add.
+     */
+    public void offer(T value) {
+        Node<T> node = new Node<>(Objects.requireNonNull(value));
+        tail.getAndSet(node).next = node;
+    }
+
+    /**
+     * Removes the element at the head of the queue. May only be called by the consumer.
+     *
+     * @return - the element, or null if the queue is empty (or its next element is not linked yet).
+     */
+    public T poll() {
+        Node<T> next = head.next;
+        if (next == null) return null;
+        T value = next.value;
+        next.value = null; // the node becomes the new head, do not retain the element
+        head = next;
+        return value;
+    }
+
+    /**
+     * May only be called by the consumer.
+     *
+     * @return - true iff poll would return null.
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+}
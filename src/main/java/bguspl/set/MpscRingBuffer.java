@@ -0,0 +1,79 @@
+package bguspl.set;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free multi-producer single-consumer FIFO queue, on a preallocated ring of slots.
+ * Any thread may offer elements (an offer never blocks: it fails if the ring is full); only a single thread (the
+ * consumer) may poll them. Producers claim the next sequence number with a CAS and then fill its slot; the consumer
+ * takes the elements in sequence order, waiting for a claimed slot to be filled.
+ *
+ * @param <T> - the type of the elements.
+ */
+public final class MpscRingBuffer<T> {
+
+    /**
+     * The slots (null if empty), indexed by sequence number modulo the capacity.
+     */
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    /**
+     * The sequence number of the next element to offer (claimed by the producers).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The sequence number of the next element to poll (advanced by the consumer, read by the producers).
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity - the most elements the ring holds (rounded up to a power of 2).
+     */
+    public MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * @return - the most elements the ring holds.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an element at the end of the queue, unless it is full. May be called by any thread.
+     *
+     * @param value - the element to add.
+     * @return - true iff the element was added.
+     */
+    public boolean offer(T value) {
+        Objects.requireNonNull(value);
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) return false;
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.lazySet((int) sequence & mask, value); // the consumer empties a slot before it advances the head
+        return true;
+    }
+
+    /**
+     * Removes the element at the head of the queue. May only be called by the consumer.
+     *
+     * @return - the element, or null if the queue is empty (or its next element is not filled yet).
+     */
+    public T poll() {
+        int index = (int) head & mask;
+        T value = slots.get(index);
+        if (value == null) return null;
+        slots.lazySet(index, null);
+        head = head + 1;
+        return value;
+    }
+}
@@ -0,0 +1,190 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Walks over the legal sets in a list of cards, one set at a time, in the same order as a lexicographic walk over
+ * all the combinations of featureSize positions in the list.
+ * For sets of 3 cards or more, only the first featureSize - 1 cards of each combination are enumerated: the last card
+ * is the unique card completing them to a set, which is then looked up among the cards that follow them in the list.
+ * As a spliterator, the cursor passes the same scratch array to every action (see set()).
+ */
+class SetCursor implements Spliterator<int[]> {
+
+    private final UtilImpl util;
+
+    /**
+     * The cards to search, by position.
+     */
+    private final int[] cards;
+
+    /**
+     * The position (plus one) of each card id in the cards array (0 if absent).
+     */
+    private final int[] positions;
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * True iff the last card of each set is completed instead of enumerated.
+     */
+    private final boolean completing;
+
+    /**
+     * The positions of the currently enumerated cards (setSize - 1 of them if completing, setSize otherwise).
+     */
+    private final int[] combination;
+
+    /**
+     * The cards of the last set found (sorted).
+     */
+    private final int[] set;
+
+    /**
+     * The first position the enumeration starts at (inclusive) and the position it stops at (exclusive).
+     */
+    private int start;
+    private int end;
+
+    private boolean started;
+
+    SetCursor(UtilImpl util, int setSize, int deckSize, List<Integer> deck) {
+        this.util = util;
+        this.setSize = setSize;
+        cards = new int[deck.size()];
+        positions = new int[deckSize];
+        for (int i = 0; i < cards.length; ++i) {
+            cards[i] = deck.get(i);
+            positions[cards[i]] = i + 1;
+        }
+        completing = setSize >= 3; // smaller sets do not have a unique completion
+        combination = new int[completing ? setSize - 1 : setSize];
+        set = new int[setSize];
+        start = 0;
+        end = Math.max(0, cards.length - setSize + 1);
+    }
+
+    /**
+     * Creates a cursor over a part of the sets of another cursor (sharing its cards).
+     */
+    private SetCursor(SetCursor cursor, int start, int end) {
+        util = cursor.util;
+        setSize = cursor.setSize;
+        cards = cursor.cards;
+        positions = cursor.positions;
+        completing = cursor.completing;
+        combination = new int[cursor.combination.length];
+        set = new int[setSize];
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Splits the sets left to walk over between a new cursor and this one, so that both have about the same number of
+     * combinations to enumerate.
+     *
+     * @return - a cursor over the sets that precede the ones this cursor is left with, or null if it cannot split.
+     */
+    @Override
+    public SetCursor trySplit() {
+        int from = started ? combination[0] + 1 : start;
+        int k = combination.length;
+
+        // the combinations from a first position x on number C(n - x, k), which is about (n - x) ^ k
+        double remaining = Math.pow(cards.length - from, k), after = Math.pow(cards.length - end, k);
+        int middle = cards.length - (int) Math.round(Math.pow((remaining + after) / 2, 1.0 / k));
+
+        middle = Math.max(middle, from);
+        if (middle >= end || middle <= (started ? combination[0] : start)) return null;
+        SetCursor prefix = new SetCursor(this, start, middle);
+        System.arraycopy(combination, 0, prefix.combination, 0, combination.length);
+        prefix.started = started;
+        start = middle;
+        started = false;
+        return prefix;
+    }
+
+    /**
+     * @return - a rough estimate of the number of combinations left to enumerate (up to a constant factor).
+     */
+    long estimateCombinations() {
+        int from = started ? combination[0] : start;
+        if (from >= end) return 0;
+        int k = combination.length;
+        return (long) (Math.pow(cards.length - from, k) - Math.pow(cards.length - end, k));
+    }
+
+    /**
+     * Moves to the next legal set.
+     *
+     * @return - true iff a set was found (see set()), false if there are no more sets.
+     */
+    boolean next() {
+        while (advance()) {
+            for (int i = 0; i < combination.length; ++i)
+                set[i] = cards[combination[i]];
+
+            if (completing) {
+                int last = util.completeSet(set, combination.length);
+                if (last < 0 || positions[last] - 1 <= combination[combination.length - 1])
+                    continue; // either no such card or it was (or will be) found through an earlier combination
+                set[combination.length] = last;
+            } else if (!util.testSet(set))
+                continue;
+
+            Arrays.sort(set);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return - the cards of the last set found (sorted). The array is reused by the following calls to next().
+     */
+    int[] set() {
+        return set;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        if (!next()) return false;
+        action.accept(set);
+        return true;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimateCombinations();
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Generates the next combination in lexicographic order.
+     *
+     * @return - false iff there are no more combinations.
+     */
+    private boolean advance() {
+        int k = combination.length;
+        if (!started) {
+            started = true;
+            for (int i = 0; i < k; ++i)
+                combination[i] = start + i;
+        } else {
+            int t = k - 1;
+            while (t != 0 && combination[t] == cards.length - setSize + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < k; i++) combination[i] = combination[i - 1] + 1;
+        }
+        return combination[0] < end;
+    }
+}
@@ -0,0 +1,122 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Properties;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+
+/**
+ * A headless simulation: plays many games back to back in the same JVM, with computer players only.
+ * The simulation uses config.properties with these overrides: every player is a computer player, there is no user
+ * interface, no table delays, no end-of-game pause, no hints and no logging. Unless the simulation is paced, the
+ * computer players do not think, nobody is frozen and there is no turn timeout (so a table without sets is reshuffled
+ * as soon as it is dealt), and games are played as fast as the engine allows; a paced simulation keeps these from the
+ * configuration.
+ * Run with: java -jar Set_Card_Game.jar --simulate [games (1000)] [--paced]
+ */
+public class Simulation {
+
+    /**
+     * The number of games between progress reports.
+     */
+    private static final int REPORT_INTERVAL = 100;
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+    private final UserInterface ui;
+
+    private int games;
+    private long gameNanos;
+    private long sets;
+    private long reshuffles;
+
+    /**
+     * @param properties - the configuration properties (overridden for the simulation, see above).
+     * @param paced      - true to keep the configured think time, freeze times and turn timeout.
+     */
+    public Simulation(Logger logger, Properties properties, boolean paced) {
+        int players = Integer.parseInt(properties.getProperty("HumanPlayers", "2"))
+                + Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("Hints", "False");
+        properties.put("LogLevel", "OFF");
+        if (!paced) {
+            properties.put("BotThinkTimeSeconds", "0");
+            properties.put("PointFreezeSeconds", "0");
+            properties.put("PenaltyFreezeSeconds", "0");
+            properties.put("TurnTimeoutSeconds", "0");
+            properties.put("TurnTimeoutWarningSeconds", "0");
+        }
+
+        this.logger = logger;
+        config = new Config(logger, properties);
+        util = new UtilImpl(config, logger);
+        ui = new UserInterfaceDecorator(logger, util, null);
+    }
+
+    /**
+     * Plays a single game to its end and adds it to the statistics.
+     */
+    public void playGame() throws InterruptedException {
+        Env env = new Env(logger, config, ui, util);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        long start = System.nanoTime();
+        Thread dealerThread = Threads.newThread(env, dealer, "dealer");
+        Threads.startWithLog(dealerThread, logger);
+        Threads.joinWithLog(dealerThread, logger);
+
+        ++games;
+        gameNanos += System.nanoTime() - start;
+        sets += dealer.setsCollected();
+        reshuffles += dealer.reshuffles();
+    }
+
+    /**
+     * Prints the statistics of the games played so far.
+     *
+     * @param elapsedNanos - the time it took to play them.
+     */
+    public void printStatistics(long elapsedNanos) {
+        if (games == 0) return;
+        System.out.printf("games: %d in %.1f seconds (%.2f games/sec)%n", games, elapsedNanos / 1e9, games / (elapsedNanos / 1e9));
+        System.out.printf("average game length: %.1f ms%n", gameNanos / 1e6 / games);
+        System.out.printf("sets per game: %.2f%n", (double) sets / games);
+        System.out.printf("reshuffles per game: %.2f%n", (double) reshuffles / games);
+    }
+
+    /**
+     * Plays the given number of games, reporting the statistics along the way and at the end.
+     *
+     * @param paced - true to keep the configured think time, freeze times and turn timeout.
+     */
+    public static void run(Logger logger, int games, boolean paced) {
+        String configFilename = "config.properties";
+        Properties properties = Config.withDefaultCacheDirectory(Config.loadProperties(configFilename, logger), configFilename);
+        Simulation simulation = new Simulation(logger, properties, paced);
+
+        long start = System.nanoTime();
+        try {
+            for (int game = 1; game <= games; ++game) {
+                simulation.playGame();
+                if (game % REPORT_INTERVAL == 0 && game < games) simulation.printStatistics(System.nanoTime() - start);
+            }
+        } catch (InterruptedException ignored) {
+        } finally {
+            System.out.println("simulation done.");
+            simulation.printStatistics(System.nanoTime() - start);
+            for (Handler h : logger.getHandlers()) h.flush();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package bguspl.set;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Creates the game threads: virtual threads if config.virtualThreads is set and the JVM supports them (Java 21 or
+ * later), platform threads otherwise.
+ * Virtual threads are created reflectively, so the game still builds for and runs on older JVMs.
+ */
+public final class Threads {
+
+    /**
+     * Thread.ofVirtual() and the Thread.Builder methods used, or null if the JVM has no virtual threads.
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null, name = null, unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+            ofVirtual.invoke(null); // fails if virtual threads are a disabled preview feature
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    /**
+     * True iff the missing support for virtual threads was already reported.
+     */
+    private static volatile boolean reported;
+
+    private Threads() {
+    }
+
+    /**
+     * @return - true iff the JVM supports virtual threads.
+     */
+    public static boolean virtualThreadsAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an unstarted thread.
+     *
+     * @param env    - the game environment object.
+     * @param target - the code the thread runs.
+     * @param name   - the name of the thread.
+     * @return - a virtual thread if the configuration asks for one and the JVM supports it, a platform thread otherwise.
+     */
+    public static Thread newThread(Env env, Runnable target, String name) {
+        if (useVirtualThreads(env.config, env.logger)) {
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                return (Thread) UNSTARTED.invoke(builder, target);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                env.logger.severe("cannot create a virtual thread, using a platform thread: " + e);
+            }
+        }
+        return new Thread(target, name);
+    }
+
+    /**
+     * @param env    - the game environment object.
+     * @param prefix - the prefix of the names of the threads (followed by a running number).
+     * @return - a factory of daemon threads, created like newThread does.
+     */
+    public static ThreadFactory factory(Env env, String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return target -> {
+            Thread thread = newThread(env, target, prefix + threads.getAndIncrement());
+            if (!thread.isDaemon()) thread.setDaemon(true); // virtual threads are always daemon threads
+            return thread;
+        };
+    }
+
+    /**
+     * Starts a thread, logging it.
+     */
+    public static void startWithLog(Thread thread, Logger logger) {
+        ThreadLogger.logStart(logger, thread.getName());
+        thread.start();
+    }
+
+    /**
+     * Waits for a thread to terminate, logging it.
+     */
+    public static void joinWithLog(Thread thread, Logger logger) throws InterruptedException {
+        try {
+            thread.join();
+        } finally {
+            ThreadLogger.logStop(logger, thread.getName());
+        }
+    }
+
+    private static boolean useVirtualThreads(Config config, Logger logger) {
+        if (!config.virtualThreads) return false;
+        if (virtualThreadsAvailable()) return true;
+        if (!reported) {
+            reported = true;
+            logger.severe("virtual threads are not supported by this JVM (Java 21 or later is needed), using platform threads.");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,94 @@
+package bguspl.set;
+
+import bguspl.set.ex.TokenStore;
+
+/**
+ * The text shown over every slot of the table: the names of the players with a token on it.
+ * The players on a slot are kept in a token store (a bitmask per slot, like the table's), so a token update only flips
+ * a bit, and a label is only built from the set bits. The labels of games with up to 64 players are cached by bitmask,
+ * since the same few combinations of players keep recurring.
+ * Only used by the event dispatch thread.
+ */
+final class TokenOverlay {
+
+    /**
+     * The number of cached labels (a power of 2). A label evicts the cached label of another bitmask with the same hash.
+     */
+    private static final int CACHED_LABELS = 1 << 12;
+
+    private final String[] playerNames;
+
+    /**
+     * The players with a token on each slot.
+     */
+    private final TokenStore tokens;
+
+    /**
+     * The bitmasks of the cached labels, and the labels (when there is a single stripe).
+     */
+    private final long[] cachedMasks = new long[CACHED_LABELS];
+    private final String[] cachedLabels = new String[CACHED_LABELS];
+
+    /**
+     * @param playerNames - the names of the players.
+     * @param slots       - the number of slots on the table.
+     */
+    TokenOverlay(String[] playerNames, int slots) {
+        this.playerNames = playerNames;
+        tokens = new TokenStore(slots, playerNames.length);
+    }
+
+    /**
+     * Places a token of a player on a slot.
+     *
+     * @return - true iff the label of the slot changed.
+     */
+    boolean place(int player, int slot) {
+        return tokens.place(player, slot);
+    }
+
+    /**
+     * Removes the token of a player from a slot.
+     *
+     * @return - true iff the label of the slot changed.
+     */
+    boolean remove(int player, int slot) {
+        return tokens.remove(player, slot);
+    }
+
+    /**
+     * Removes all the tokens from a slot.
+     *
+     * @return - true iff the label of the slot changed.
+     */
+    boolean clear(int slot) {
+        if (tokens.count(slot) == 0) return false;
+        tokens.clear(slot, player -> {});
+        return true;
+    }
+
+    /**
+     * @return - the names of the players with a token on the slot, separated by commas (empty if there are none).
+     */
+    String label(int slot) {
+        if (tokens.stripes() > 1) return build(slot);
+        long mask = tokens.mask(slot);
+        if (mask == 0) return "";
+        int index = Long.hashCode(mask * 0x9E3779B97F4A7C15L) & (CACHED_LABELS - 1);
+        if (cachedMasks[index] != mask || cachedLabels[index] == null) {
+            cachedMasks[index] = mask;
+            cachedLabels[index] = build(slot);
+        }
+        return cachedLabels[index];
+    }
+
+    private String build(int slot) {
+        StringBuilder label = new StringBuilder();
+        for (int stripe = 0; stripe < tokens.stripes(); ++stripe)
+            for (long mask = tokens.mask(slot, stripe); mask != 0; mask &= mask - 1) {
+                if (label.length() > 0) label.append(", ");
+                label.append(playerNames[stripe * Long.SIZE + Long.numberOfTrailingZeros(mask)]);
+            }
+        return label.toString();
+    }
+}
@@ -19,44 +19,62 @@ public class UserInterfaceDecorator implements UserInterface {
         if (ui == null) System.out.println("running without a user interface. Check logs.");
     }
 
+    /**
+     * Logs a user interface update at the EVENT level. The message is only formatted when the record is written, and
+     * nothing (not even the parameters) is allocated if the level is off.
+     *
+     * @param pattern - the message, with {0}, {1} in place of the parameters.
+     */
+    private void event(String pattern) {
+        logger.log(EventLevel.EVENT, pattern);
+    }
+
+    private void event(String pattern, long first) {
+        if (logger.isLoggable(EventLevel.EVENT)) logger.log(EventLevel.EVENT, pattern, first);
+    }
+
+    private void event(String pattern, long first, long second) {
+        if (logger.isLoggable(EventLevel.EVENT)) logger.log(EventLevel.EVENT, pattern, new Object[]{first, second});
+    }
+
     @Override
     public void placeCard(int card, int slot) {
-        logger.severe("placing card " + card + " in slot " + slot);
+        event("placing card {0} in slot {1}", card, slot);
         util.spin();
         if (ui != null) ui.placeCard(card, slot);
     }
 
     @Override
     public void removeCard(int slot) {
-        logger.severe("removing card from slot " + slot);
+        event("removing card from slot {0}", slot);
         util.spin();
         if (ui != null) ui.removeCard(slot);
     }
 
     @Override
     public void placeToken(int player, int slot) {
-        logger.severe("player " + (player + 1) + " placing token on slot " + slot);
+        event("player {0} placing token on slot {1}", player + 1, slot);
         util.spin();
         if (ui != null) ui.placeToken(player, slot);
     }
 
     @Override
     public void removeTokens() {
-        logger.severe("removing all tokens");
+        event("removing all tokens");
         util.spin();
         if (ui != null) ui.removeTokens();
     }
 
     @Override
     public void removeTokens(int slot) {
-        logger.severe("removing tokens from slot " + slot);
+        event("removing tokens from slot {0}", slot);
         util.spin();
         if (ui != null) ui.removeTokens(slot);
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        logger.severe("removing player " + (player + 1) + " token from slot " + slot);
+        event("removing player {0} token from slot {1}", player + 1, slot);
         util.spin();
         if (ui != null) ui.removeToken(player, slot);
     }
@@ -64,27 +82,27 @@ public class UserInterfaceDecorator implements UserInterface {
     @Override
     public void setCountdown(long millies, boolean warn) {
         if (!warn || millies % 1000L == 0L)
-            logger.severe("updating countdown to " + millies);
+            event("updating countdown to {0}", millies);
         if (ui != null) ui.setCountdown(millies, warn);
     }
 
     @Override
     public void setElapsed(long millies) {
-        logger.severe("updating elapsed time to " + millies);
+        event("updating elapsed time to {0}", millies);
         util.spin();
         if (ui != null) ui.setElapsed(millies);
     }
 
     @Override
     public void setFreeze(int player, long millies) {
-        logger.severe("setting player " + (player + 1) + " freeze to " + millies);
+        event("setting player {0} freeze to {1}", player + 1, millies);
         util.spin();
         if (ui != null) ui.setFreeze(player, millies);
     }
 
     @Override
     public void setScore(int player, int score) {
-        logger.severe("setting player " + (player + 1) + " score to " + score);
+        event("setting player {0} score to {1}", player + 1, score);
         util.spin();
         if (ui != null) ui.setScore(player, score);
     }
@@ -0,0 +1,229 @@
+package bguspl.set;
+
+import javax.swing.Timer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Applies the updates the game threads make to the user interface asynchronously, on the event dispatch thread.
+ * The game threads post the updates to a lock-free queue and return immediately; once per frame, the event dispatch
+ * thread drains the queue and applies the updates in a single batch. Updates that are overwritten later in the batch
+ * are never applied: only the last countdown, elapsed time, freeze time and score, and the last card placed in (or
+ * removed from) each slot, are shown.
+ */
+public class UserInterfaceDispatcher implements UserInterface {
+
+    private enum Kind {
+        PLACE_CARD, REMOVE_CARD, PLACE_TOKEN, REMOVE_TOKENS, REMOVE_SLOT_TOKENS, REMOVE_TOKEN, COUNTDOWN, ELAPSED,
+        FREEZE, SCORE, ANNOUNCE_WINNER, DISPOSE
+    }
+
+    /**
+     * An update posted by a game thread.
+     */
+    private static final class Event {
+        private final Kind kind;
+        private final int player;
+        private final int slot;
+        private final long value;
+        private final int[] players;
+
+        private Event(Kind kind, int player, int slot, long value, int[] players) {
+            this.kind = kind;
+            this.player = player;
+            this.slot = slot;
+            this.value = value;
+            this.players = players;
+        }
+
+        private Event(Kind kind, int player, int slot, long value) {
+            this(kind, player, slot, value, null);
+        }
+    }
+
+    private static final int NO_CARD = -1;
+
+    /**
+     * The user interface the updates are applied to.
+     */
+    private final UserInterface ui;
+
+    /**
+     * The updates posted and not applied yet.
+     */
+    private final MpscQueue<Event> events = new MpscQueue<>();
+
+    /**
+     * Drains the updates once per frame, on the event dispatch thread.
+     */
+    private final Timer timer;
+
+    // the updates of the batch being drained that are applied once, at the end of the batch
+
+    private final int[] slotCards;
+    private final BitSet dirtySlots;
+    private final long[] freezes;
+    private final BitSet dirtyFreezes;
+    private final int[] scores;
+    private final BitSet dirtyScores;
+    private Event countdown;
+    private Event elapsed;
+
+    /**
+     * @param config - the game configuration (the table size, number of players and frame rate).
+     * @param ui     - the user interface the updates are applied to.
+     */
+    public UserInterfaceDispatcher(Config config, UserInterface ui) {
+        this.ui = ui;
+        slotCards = new int[config.tableSize];
+        dirtySlots = new BitSet(config.tableSize);
+        freezes = new long[config.players];
+        dirtyFreezes = new BitSet(config.players);
+        scores = new int[config.players];
+        dirtyScores = new BitSet(config.players);
+        timer = new Timer(Math.max(1, 1000 / config.uiFrameRate), e -> drain());
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Starts applying the posted updates, once per frame.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Applies all the updates posted so far. May only be called by a single thread at a time (the event dispatch
+     * thread, once started).
+     */
+    void drain() {
+        Event event;
+        while ((event = events.poll()) != null) {
+            switch (event.kind) {
+                case PLACE_CARD:
+                    slotCards[event.slot] = (int) event.value;
+                    dirtySlots.set(event.slot);
+                    break;
+                case REMOVE_CARD:
+                    slotCards[event.slot] = NO_CARD;
+                    dirtySlots.set(event.slot);
+                    break;
+                case COUNTDOWN:
+                    countdown = event;
+                    break;
+                case ELAPSED:
+                    elapsed = event;
+                    break;
+                case FREEZE:
+                    freezes[event.player] = event.value;
+                    dirtyFreezes.set(event.player);
+                    break;
+                case SCORE:
+                    scores[event.player] = (int) event.value;
+                    dirtyScores.set(event.player);
+                    break;
+                case PLACE_TOKEN:
+                    ui.placeToken(event.player, event.slot);
+                    break;
+                case REMOVE_TOKENS:
+                    ui.removeTokens();
+                    break;
+                case REMOVE_SLOT_TOKENS:
+                    ui.removeTokens(event.slot);
+                    break;
+                case REMOVE_TOKEN:
+                    ui.removeToken(event.player, event.slot);
+                    break;
+                case ANNOUNCE_WINNER:
+                    ui.announceWinner(event.players);
+                    break;
+                case DISPOSE:
+                    flush();
+                    timer.stop();
+                    ui.dispose();
+                    return;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Applies the coalesced updates of the batch.
+     */
+    private void flush() {
+        for (int slot = dirtySlots.nextSetBit(0); slot >= 0; slot = dirtySlots.nextSetBit(slot + 1)) {
+            if (slotCards[slot] == NO_CARD) ui.removeCard(slot);
+            else ui.placeCard(slotCards[slot], slot);
+        }
+        dirtySlots.clear();
+        for (int player = dirtyFreezes.nextSetBit(0); player >= 0; player = dirtyFreezes.nextSetBit(player + 1))
+            ui.setFreeze(player, freezes[player]);
+        dirtyFreezes.clear();
+        for (int player = dirtyScores.nextSetBit(0); player >= 0; player = dirtyScores.nextSetBit(player + 1))
+            ui.setScore(player, scores[player]);
+        dirtyScores.clear();
+        if (countdown != null) ui.setCountdown(countdown.value, countdown.slot != 0);
+        if (elapsed != null) ui.setElapsed(elapsed.value);
+        countdown = elapsed = null;
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        events.offer(new Event(Kind.PLACE_CARD, NO_CARD, slot, card));
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        events.offer(new Event(Kind.REMOVE_CARD, NO_CARD, slot, 0));
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        events.offer(new Event(Kind.PLACE_TOKEN, player, slot, 0));
+    }
+
+    @Override
+    public void removeTokens() {
+        events.offer(new Event(Kind.REMOVE_TOKENS, NO_CARD, NO_CARD, 0));
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        events.offer(new Event(Kind.REMOVE_SLOT_TOKENS, NO_CARD, slot, 0));
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        events.offer(new Event(Kind.REMOVE_TOKEN, player, slot, 0));
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        events.offer(new Event(Kind.COUNTDOWN, NO_CARD, warn ? 1 : 0, millies)); // the slot holds the warn flag
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        events.offer(new Event(Kind.ELAPSED, NO_CARD, NO_CARD, millies));
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        events.offer(new Event(Kind.FREEZE, player, NO_CARD, millies));
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        events.offer(new Event(Kind.SCORE, player, NO_CARD, score));
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        events.offer(new Event(Kind.ANNOUNCE_WINNER, NO_CARD, NO_CARD, 0, Arrays.copyOf(players, players.length)));
+    }
+
+    @Override
+    public void dispose() {
+        events.offer(new Event(Kind.DISPOSE, NO_CARD, NO_CARD, 0));
+    }
+}
@@ -4,8 +4,8 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
-import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
@@ -18,6 +18,12 @@ import static java.lang.String.format;
  */
 public class UserInterfaceSwing extends JFrame implements UserInterface {
 
+    /**
+     * The largest fractions of the screen the card grid may take (larger grids are scaled down to fit).
+     */
+    private static final double MAX_GRID_SCREEN_WIDTH = 0.9;
+    private static final double MAX_GRID_SCREEN_HEIGHT = 0.7;
+
     private final TimerPanel timerPanel;
     private final GamePanel gamePanel;
     private final PlayersPanel playersPanel;
@@ -32,7 +38,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         this.config = config;
         timerPanel = new TimerPanel();
-        gamePanel = new GamePanel();
+        gamePanel = new GamePanel(logger);
         playersPanel = new PlayersPanel();
         winnerPanel = new WinnerPanel();
 
@@ -102,39 +108,66 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
     private class GamePanel extends JLayeredPane {
 
+        /**
+         * The card images, scaled to the cell size (loaded in the background).
+         */
+        private final CardImages cardImages;
+
+        /**
+         * The card images converted to the screen's format, so they are drawn without conversion (or scaling), and
+         * may be cached in video memory by Java2D (created when a card is first placed, null for cards with no image).
+         */
+        private final Image[] sprites;
         private final Image emptyCard;
-        private final Image[] deck;
-        private final Image[][] grid;
-        private final boolean[][][] playerTokens;
-        private final JLabel[][] tokenText;
 
-        private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
-                throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
-        }
+        /**
+         * The cards on the table grid, drawn once per change: painting the panel only copies the damaged region.
+         */
+        private final BufferedImage gridBuffer;
+
+        /**
+         * The font of the features drawn on cards that have no image.
+         */
+        private final Font labelFont;
+
+        /**
+         * The size of a cell on the screen: the configured size, scaled down if the grid does not fit on the screen.
+         */
+        private final int cellWidth;
+        private final int cellHeight;
+
+        /**
+         * The players with a token on each slot, and the text shown over the slot.
+         */
+        private final TokenOverlay tokens;
+        private final JLabel[][] tokenText;
 
-        private GamePanel() {
+        private GamePanel(Logger logger) {
 
-            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+            Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+            double scale = Math.min(1, Math.min(
+                    screen.width * MAX_GRID_SCREEN_WIDTH / (config.columns * config.cellWidth),
+                    screen.height * MAX_GRID_SCREEN_HEIGHT / (config.rows * config.cellHeight)));
+            cellWidth = Math.max(1, (int) (config.cellWidth * scale));
+            cellHeight = Math.max(1, (int) (config.cellHeight * scale));
+            setPreferredSize(new Dimension(config.columns * cellWidth, config.rows * cellHeight));
 
-            // init deck and load all pictures from png files
+            // start loading the card images from png files (there are only images for the default deck)
             assert config.featureSize < 10; // otherwise there will be naming conflicts
+            cardImages = CardImages.open(config, cellWidth, cellHeight, logger);
+            if (cardImages.emptyCard() == null)
+                throw new RuntimeException(new FileNotFoundException("cards/empty_card.png"));
+            sprites = new Image[config.deckSize];
+            emptyCard = compatibleImage(cardImages.emptyCard());
+            gridBuffer = graphicsConfiguration().createCompatibleImage(config.columns * cellWidth, config.rows * cellHeight, Transparency.TRANSLUCENT);
+            labelFont = new Font("Monospaced", Font.BOLD, Math.max(8, cellHeight / 5));
 
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
-            emptyCard = loadImageResource("cards/empty_card.png");
-
-            grid = new Image[config.rows][config.columns];
             tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
+            tokens = new TokenOverlay(config.playerNames, config.tableSize);
             for (int row = 0; row < config.rows; row++) {
                 for (int column = 0; column < config.columns; column++) {
                     // init the cards on the table grid as empty cards
-                    grid[row][column] = emptyCard;
+                    drawCell(row, column, emptyCard, null);
 
                     // init the JLabel selection overlay
                     tokenText[row][column] = new JLabel("");
@@ -142,33 +175,57 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
                     tokenText[row][column].setHorizontalAlignment(JLabel.CENTER);
                     tokenText[row][column].setOpaque(false);
                     tokenText[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                    tokenText[row][column].setBounds((column * config.cellWidth), (row * config.cellHeight), config.cellWidth, config.cellHeight);
+                    tokenText[row][column].setBounds((column * cellWidth), (row * cellHeight), cellWidth, cellHeight);
                     add(tokenText[row][column]);
                 }
             }
         }
 
         private void placeCard(int slot, int card) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
+            Image sprite = sprite(card);
+            drawCell(slot / config.columns, slot % config.columns, sprite != null ? sprite : emptyCard,
+                    sprite != null ? null : intInBaseToPaddedString(card, config.featureCount, config.featureSize));
         }
 
         private void removeCard(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            drawCell(slot / config.columns, slot % config.columns, emptyCard, null);
+        }
+
+        private Image sprite(int card) {
+            if (sprites[card] == null) {
+                BufferedImage image = cardImages.card(card);
+                if (image != null) sprites[card] = compatibleImage(image);
+            }
+            return sprites[card];
+        }
+
+        /**
+         * Draws a card in a cell of the grid buffer, and repaints only that cell.
+         *
+         * @param sprite - the card image.
+         * @param label  - the text to draw over the image, or null.
+         */
+        private void drawCell(int row, int column, Image sprite, String label) {
+            int x = column * cellWidth, y = row * cellHeight;
+            Graphics2D g = gridBuffer.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Src); // replace the previous card, including its transparent corners
+                g.drawImage(sprite, x, y, null);
+                g.setComposite(AlphaComposite.SrcOver);
+                if (label != null) {
+                    g.setFont(labelFont);
+                    g.setColor(Color.BLACK);
+                    FontMetrics metrics = g.getFontMetrics();
+                    g.drawString(label, x + (cellWidth - metrics.stringWidth(label)) / 2, y + (cellHeight + metrics.getAscent()) / 2);
+                }
+            } finally {
+                g.dispose();
+            }
+            repaint(x, y, cellWidth, cellHeight);
         }
 
         private void placeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            if (tokens.place(player, slot)) updateTokenText(slot);
         }
 
         private void removeTokens() {
@@ -177,39 +234,41 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
 
         private void removeTokens(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
-            }
+            if (tokens.clear(slot)) updateTokenText(slot);
         }
 
         private void removeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            if (tokens.remove(player, slot)) updateTokenText(slot);
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
-            for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
-            }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+        private void updateTokenText(int slot) {
+            tokenText[slot / config.columns][slot % config.columns].setText(tokens.label(slot));
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+            // draw card images (only the clipped, i.e. damaged, region is copied)
+            g.drawImage(gridBuffer, 0, 0, this);
+        }
+    }
+
+    private static GraphicsConfiguration graphicsConfiguration() {
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    /**
+     * @return - a copy of the image in the screen's format.
+     */
+    private static Image compatibleImage(BufferedImage image) {
+        BufferedImage compatible = graphicsConfiguration().createCompatibleImage(image.getWidth(), image.getHeight(), image.getTransparency());
+        Graphics2D g = compatible.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
         }
+        return compatible;
     }
 
     private class PlayersPanel extends JPanel {
@@ -218,7 +277,8 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         private PlayersPanel() {
             this.setLayout(new GridLayout(2, config.players));
-            this.setPreferredSize(new Dimension(config.players * config.playerCellWidth, config.rows * config.playerCellHeight));
+            int width = Math.min(config.players * config.playerCellWidth, (int) (Toolkit.getDefaultToolkit().getScreenSize().width * MAX_GRID_SCREEN_WIDTH));
+            this.setPreferredSize(new Dimension(width, 2 * config.playerCellHeight));
             this.playersTable = new JLabel[2][config.players];
             for (int i = 0; i < config.players; i++) {
                 this.playersTable[0][i] = new JLabel(config.playerNames[i]);
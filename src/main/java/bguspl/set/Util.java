@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -31,6 +32,14 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Finds the card that completes the given cards to a legal set.
+     *
+     * @param cards - an array of config.featureSize - 1 cards (at least 2).
+     * @return - the id of the completing card, or -1 if the cards are not part of any legal set.
+     */
+    int completeSet(int[] cards);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +49,17 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Lazily walks over the legal sets in the given collection of cards, in the same order as findSets. Sets are only
+     * searched for as the stream consumes them, so short-circuiting operations (e.g. findFirst, limit) stop the search.
+     * Note: no array is allocated per set. Each stream element is a scratch array that is reused for the following
+     * sets, so it must be copied (e.g. map(int[]::clone)) to be kept.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a sequential stream of the sets, each one an array of the card ids of a legal set (sorted).
+     */
+    Stream<int[]> streamSets(List<Integer> deck);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -1,20 +1,96 @@
 package bguspl.set;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
  */
 public class UtilImpl implements Util {
 
+    /**
+     * The number of combinations below which a set search is not worth splitting among threads.
+     */
+    private static final long MIN_PARALLEL_COMBINATIONS = 1L << 14;
+
+    /**
+     * The number of sets a parallel search task finds before publishing them to the shared count (see SearchTask).
+     */
+    private static final int FOUND_BATCH = 64;
+
+    /**
+     * The pools of threads searching for sets, by parallelism. They are shared by all the instances (and their daemon
+     * threads exit when idle), so creating instances does not leak threads.
+     */
+    private static final Map<Integer, ForkJoinPool> SEARCH_POOLS = new ConcurrentHashMap<>();
+
     private final Config config;
 
+    /**
+     * The pool of threads searching for sets in parallel (null if config.setSearchParallelism is 1).
+     */
+    private final ForkJoinPool searchPool;
+
+    /**
+     * The features of every card, packed into featureCount one-hot fields of featureSize bits each (the field of
+     * feature i starts at bit i * featureSize). Null if the fields do not fit in a long.
+     */
+    private final long[] packedFeatures;
+
+    /**
+     * A mask of featureSize ones (i.e. the width of a single packed feature field).
+     */
+    private final long fieldMask;
+
+    /**
+     * The place value of each feature in the card id (i.e. featureSize ^ (featureCount - 1 - i)).
+     */
+    private final int[] featureWeights;
+
+    /**
+     * The memory-mapped card completing every pair of cards (null if the sets are not of 3 cards or it is not kept).
+     */
+    private final CompletionTable completionTable;
+
     public UtilImpl(Config config) {
+        this(config, Logger.getLogger(UtilImpl.class.getName()));
+    }
+
+    public UtilImpl(Config config, Logger logger) {
         this.config = config;
+
+        featureWeights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            featureWeights[i] = weight;
+
+        fieldMask = config.featureSize > 0 ? -1L >>> (Long.SIZE - config.featureSize) : 0L;
+        if ((long) config.featureCount * config.featureSize <= Long.SIZE) {
+            packedFeatures = new long[config.deckSize];
+            int[] features = new int[config.featureCount];
+            for (int card = 0; card < config.deckSize; ++card) {
+                cardToFeatures(card, features);
+                long packed = 0;
+                for (int i = 0; i < config.featureCount; ++i)
+                    packed |= 1L << (i * config.featureSize + features[i]);
+                packedFeatures[card] = packed;
+            }
+        } else packedFeatures = null;
+        completionTable = CompletionTable.open(config, this, logger);
+
+        searchPool = config.setSearchParallelism > 1
+                ? SEARCH_POOLS.computeIfAbsent(config.setSearchParallelism, ForkJoinPool::new)
+                : null;
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -38,56 +114,152 @@ public class UtilImpl implements Util {
         return features;
     }
 
+    /**
+     * A feature is legal iff it is sameSame (a single distinct value) or butDifferent (a distinct value per card),
+     * but not both.
+     */
+    private static boolean isLegalFeature(int distinctValues, int cards) {
+        return (distinctValues <= 1) != (distinctValues == cards);
+    }
+
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
+        if (packedFeatures == null) return testSetByWeights(cards);
+
+        long union = 0;
+        for (int card : cards)
+            union |= packedFeatures[card];
+        for (int i = 0; i < config.featureCount; ++i)
+            if (!isLegalFeature(Long.bitCount((union >>> (i * config.featureSize)) & fieldMask), cards.length))
+                return false;
+        return true;
+    }
+
+    /**
+     * Same as testSet, for feature spaces too wide to be packed: decodes each feature on the fly.
+     */
+    private boolean testSetByWeights(int[] cards) {
         for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
+            long values = 0; // a bit per distinct value of this feature (featureSize > 64 is not supported here)
+            for (int card : cards)
+                values |= 1L << (card / featureWeights[i] % config.featureSize);
+            if (!isLegalFeature(Long.bitCount(values), cards.length))
+                return false;
+        }
+        return true;
+    }
 
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+    /**
+     * Finds the unique card completing the given cards to a legal set. Each feature of that card is the common value
+     * of the given cards if they are sameSame, or the single value missing from them if they are butDifferent.
+     *
+     * @param cards  - an array of cards.
+     * @param length - the number of cards to use from the start of the array (featureSize - 1, at least 2).
+     * @return - the completing card id, or -1 if the given cards are not part of any legal set.
+     */
+    int completeSet(int[] cards, int length) {
+        if (length == 2 && completionTable != null && cards[0] != cards[1])
+            return completionTable.complete(cards[0], cards[1]);
+
+        long union = 0;
+        if (packedFeatures != null)
+            for (int j = 0; j < length; ++j)
+                union |= packedFeatures[cards[j]];
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+        int card = 0;
+        for (int i = 0; i < config.featureCount; ++i) {
+            long values = 0; // a bit per distinct value of this feature
+            if (packedFeatures != null)
+                values = (union >>> (i * config.featureSize)) & fieldMask;
+            else for (int j = 0; j < length; ++j)
+                values |= 1L << (cards[j] / featureWeights[i] % config.featureSize);
 
-            if (sameSame == butDifferent) return false;
+            int distinctValues = Long.bitCount(values);
+            if (distinctValues == 1)
+                card += Long.numberOfTrailingZeros(values) * featureWeights[i];
+            else if (distinctValues == length)
+                card += Long.numberOfTrailingZeros(~values & fieldMask) * featureWeights[i];
+            else return -1;
         }
-        return true;
+        return card;
+    }
+
+    @Override
+    public int completeSet(int[] cards) {
+        return completeSet(cards, cards.length);
     }
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        SetCursor cursor = new SetCursor(this, config.featureSize, config.deckSize, deck);
+        if (searchPool != null && cursor.estimateCombinations() >= MIN_PARALLEL_COMBINATIONS) {
+            LinkedList<int[]> sets = searchPool.invoke(new SearchTask(cursor, count, new AtomicInteger()));
+            while (sets.size() > count) sets.removeLast();
+            return sets;
+        }
+
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        while (cursor.next()) {
+            sets.add(cursor.set().clone());
+            if (sets.size() >= count) return sets;
+        }
+        return sets;
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        return StreamSupport.stream(new SetCursor(this, config.featureSize, config.deckSize, deck), false);
+    }
+
+    /**
+     * Searches for sets with a cursor, forking off parts of the search to other threads as long as they are big enough.
+     * If config.setSearchDeterministic is true, every task finds up to count sets of its own and the results are joined
+     * in order. Otherwise, all tasks stop as soon as count sets were found altogether.
+     */
+    private class SearchTask extends RecursiveTask<LinkedList<int[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SetCursor cursor;
+        private final int count;
+        private final AtomicInteger found;
+
+        private SearchTask(SetCursor cursor, int count, AtomicInteger found) {
+            this.cursor = cursor;
+            this.count = count;
+            this.found = found;
+        }
+
+        private boolean done(int sets, int unpublished) {
+            return config.setSearchDeterministic ? sets >= count : found.get() + unpublished >= count;
+        }
+
+        @Override
+        protected LinkedList<int[]> compute() {
+            List<SearchTask> forked = new ArrayList<>();
+            SetCursor prefix;
+            while (cursor.estimateCombinations() >= MIN_PARALLEL_COMBINATIONS && (prefix = cursor.trySplit()) != null) {
+                SearchTask task = new SearchTask(prefix, count, found);
+                task.fork();
+                forked.add(task);
+            }
+
+            LinkedList<int[]> sets = new LinkedList<>();
+            int unpublished = 0; // sets found and not yet added to the shared count, to keep its cache line quiet
+            while (!done(sets.size(), unpublished) && cursor.next()) {
+                sets.add(cursor.set().clone());
+                if (++unpublished == FOUND_BATCH) {
+                    found.addAndGet(unpublished);
+                    unpublished = 0;
+                }
             }
+            found.addAndGet(unpublished);
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+            // every fork took the sets preceding the ones left to this task
+            for (int i = forked.size() - 1; i >= 0; --i)
+                sets.addAll(0, forked.get(i).join());
+            return sets;
         }
-        return sets;
     }
 
     public void spin() {
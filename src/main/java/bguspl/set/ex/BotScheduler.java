@@ -0,0 +1,253 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.Threads;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class drives the computer players: instead of a thread per computer player, every computer player is a task
+ * on a shared scheduled executor, pressing a key after every think time.
+ */
+public class BotScheduler {
+
+    /**
+     * The ways computer players choose the keys they press.
+     */
+    public enum Strategy {
+        /** Press a random slot after every think time. */
+        RANDOM,
+        /**
+         * Think, then claim a legal set on the table (or, at the configured error rate, random cards), taking back
+         * the tokens on other cards first.
+         */
+        SETS
+    }
+
+    /**
+     * The distributions of the think time between key presses.
+     */
+    public enum Distribution {
+        /** Always the configured think time. */
+        FIXED,
+        /** Uniform between 0 and twice the configured think time. */
+        UNIFORM,
+        /** Exponential, with the configured think time as its mean (i.e. key presses are a Poisson process). */
+        EXPONENTIAL
+    }
+
+    /**
+     * The delay before pressing a key again when the player's queue of key presses is full, and the least delay before
+     * looking for a set again when there is none on the table (so computer players that do not think do not spin).
+     */
+    private static final long FULL_QUEUE_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The delay before checking again whether the player handled the keys a computer player pressed.
+     */
+    private static final long SETTLE_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * Game entities.
+     */
+    private final Table table;
+
+    /**
+     * The strategy of the computer players.
+     */
+    private final Strategy strategy;
+
+    /**
+     * The think time distribution.
+     */
+    private final Distribution distribution;
+
+    /**
+     * The mean think time, in nanoseconds.
+     */
+    private final long meanThinkTimeNanos;
+
+    /**
+     * The executor running the computer players (its threads are only started when the first computer player starts).
+     */
+    private final ScheduledExecutorService executor;
+
+    public BotScheduler(Env env, Table table) {
+        this.env = env;
+        this.table = table;
+        strategy = parse(env, Strategy.class, env.config.botStrategy, Strategy.RANDOM, "bot strategy");
+        distribution = parse(env, Distribution.class, env.config.botThinkTimeDistribution, Distribution.FIXED,
+                "bot think time distribution");
+        meanThinkTimeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(env.config.botThinkTimeMillis, 0));
+        executor = Executors.newScheduledThreadPool(env.config.botSchedulerThreads, Threads.factory(env, "computers-"));
+    }
+
+    private static <E extends Enum<E>> E parse(Env env, Class<E> type, String value, E fallback, String description) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            env.logger.severe("unknown " + description + " " + value + ", using " + fallback + ".");
+            return fallback;
+        }
+    }
+
+    /**
+     * Starts pressing keys for a computer player, until it is terminated or the scheduler is shut down.
+     *
+     * @param player - the computer player.
+     */
+    public void start(Player player) {
+        Bot bot = new Bot(player);
+        schedule(bot, thinkTimeNanos());
+    }
+
+    /**
+     * Stops all the computer players.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A computer player: every run presses a single key, and schedules the next run.
+     */
+    private class Bot implements Runnable {
+
+        private final Player player;
+
+        /**
+         * The cards left to press for the claim in progress (when using the sets strategy).
+         */
+        private final Deque<Integer> claim = new ArrayDeque<>();
+
+        /**
+         * The number of keys pressed (compared with the player's settled actions).
+         */
+        private long pressedKeys;
+
+        private Bot(Player player) {
+            this.player = player;
+        }
+
+        @Override
+        public void run() {
+            if (player.isTerminated()) return;
+            schedule(this, strategy == Strategy.SETS ? claimStep() : randomStep());
+        }
+
+        /**
+         * Presses a random slot.
+         *
+         * @return - the delay until the next key press, in nanoseconds.
+         */
+        private long randomStep() {
+            boolean pressed = player.incomingActions.offer(player.randomSlot());
+            long delay = thinkTimeNanos();
+            return pressed ? delay : Math.max(delay, FULL_QUEUE_RETRY_NANOS);
+        }
+
+        /**
+         * Chooses the cards to claim if there is no claim in progress, otherwise presses the next card of the claim.
+         *
+         * @return - the delay until the next key press, in nanoseconds.
+         */
+        private long claimStep() {
+            if (claim.isEmpty()) {
+                // the claim is chosen from the chosen cards, so the keys pressed so far must have taken effect
+                if (player.settledActions() != pressedKeys) return SETTLE_RETRY_NANOS;
+                if (!chooseClaim()) return Math.max(thinkTimeNanos(), FULL_QUEUE_RETRY_NANOS);
+                return thinkTimeNanos(); // the reaction time
+            }
+
+            int slot = table.cardToSlot[claim.peek()];
+            if (slot == Table.NONE) { // the card left the table in the meantime
+                claim.clear();
+                return 0;
+            }
+            if (!player.incomingActions.offer(slot)) return FULL_QUEUE_RETRY_NANOS;
+            ++pressedKeys;
+            claim.poll();
+            return 0;
+        }
+
+        /**
+         * Fills the claim with the cards to press: the chosen cards to take tokens back from, then the cards to
+         * place tokens on.
+         *
+         * @return - false iff there was nothing to claim.
+         */
+        private boolean chooseClaim() {
+            int[] target = null;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < env.config.botErrorRate) {
+                target = randomCards(random);
+            } else {
+                int[][] sets = table.setIndex.sets();
+                if (sets.length > 0) target = sets[random.nextInt(sets.length)];
+            }
+            if (target == null) return false;
+
+            int[] chosen = player.chosenCards.toArray();
+            for (int card : chosen)
+                if (!contains(target, card) && table.cardToSlot[card] != Table.NONE) claim.add(card);
+            for (int card : target)
+                if (!contains(chosen, card)) claim.add(card);
+            return true;
+        }
+
+        /**
+         * @return - featureSize distinct random cards on the table, or null if there are not enough cards.
+         */
+        private int[] randomCards(ThreadLocalRandom random) {
+            List<Integer> cards = new ArrayList<>();
+            for (int card : table.slotToCard)
+                if (card != Table.NONE) cards.add(card);
+            if (cards.size() < env.config.featureSize) return null;
+            Collections.shuffle(cards, random);
+            return cards.stream().limit(env.config.featureSize).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static boolean contains(int[] cards, int card) {
+        for (int c : cards)
+            if (c == card) return true;
+        return false;
+    }
+
+    private void schedule(Runnable step, long delayNanos) {
+        try {
+            executor.schedule(step, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // shut down
+        }
+    }
+
+    /**
+     * @return - a random think time, in nanoseconds.
+     */
+    long thinkTimeNanos() {
+        switch (distribution) {
+            case UNIFORM:
+                return meanThinkTimeNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(2 * meanThinkTimeNanos + 1);
+            case EXPONENTIAL:
+                return (long) (-meanThinkTimeNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+            default:
+                return meanThinkTimeNanos;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * The cards a player placed tokens on: an int array of at most featureSize cards and a count, so choosing a card
+ * does not box it. The player thread changes the cards while the dealer and the computer players read them, so every
+ * method holds the object's monitor (briefly, it never blocks inside).
+ */
+final class ChosenCards {
+
+    private final int[] cards;
+    private int size;
+
+    /**
+     * @param capacity - the most cards that may be chosen (i.e. featureSize).
+     */
+    ChosenCards(int capacity) {
+        cards = new int[capacity];
+    }
+
+    /**
+     * Chooses a card.
+     *
+     * @return - true iff the card was added (false if it was already chosen or the capacity is reached).
+     */
+    synchronized boolean add(int card) {
+        if (size == cards.length || indexOf(card) >= 0) return false;
+        cards[size++] = card;
+        return true;
+    }
+
+    /**
+     * Unchooses a card.
+     *
+     * @return - true iff the card was chosen.
+     */
+    synchronized boolean remove(int card) {
+        int index = indexOf(card);
+        if (index < 0) return false;
+        cards[index] = cards[--size];
+        return true;
+    }
+
+    /**
+     * Unchooses the cards that are no longer on the table.
+     *
+     * @param cardToSlot - mapping between a card and the slot it is in (Table.NONE if none).
+     */
+    synchronized void removeOffTable(int[] cardToSlot) {
+        for (int i = size - 1; i >= 0; --i)
+            if (cardToSlot[cards[i]] == Table.NONE) cards[i] = cards[--size];
+    }
+
+    /**
+     * @return - true iff the card is chosen.
+     */
+    synchronized boolean contains(int card) {
+        return indexOf(card) >= 0;
+    }
+
+    /**
+     * @return - the number of chosen cards.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Unchooses all the cards.
+     */
+    synchronized void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return - a copy of the chosen cards.
+     */
+    synchronized int[] toArray() {
+        return Arrays.copyOf(cards, size);
+    }
+
+    private int indexOf(int card) {
+        for (int i = 0; i < size; ++i)
+            if (cards[i] == card) return i;
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+package bguspl.set.ex;
+
+/**
+ * A set of cards a player submitted to the dealer for check.
+ */
+public final class Claim {
+
+    /**
+     * The id of the player that submitted the claim.
+     */
+    public final int playerId;
+
+    /**
+     * The claimed cards.
+     */
+    public final int[] cards;
+
+    /**
+     * The time the claim was submitted (System.nanoTime).
+     */
+    public final long nanoTime;
+
+    public Claim(int playerId, int[] cards, long nanoTime) {
+        this.playerId = playerId;
+        this.cards = cards;
+        this.nanoTime = nanoTime;
+    }
+}
@@ -1,14 +1,18 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
-import bguspl.set.UtilImpl;
+import bguspl.set.MpscQueue;
+import bguspl.set.Threads;
 
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -35,14 +39,14 @@ public class Dealer implements Runnable {
     private final List<Integer> deck;
 
     /**
-     * True iff game should be terminated due to an external event.
+     * The legal sets that can still be collected (among the cards in the deck and on the table).
      */
-    private volatile boolean terminate;
+    private final SetTracker setTracker;
 
     /**
-     * The UserInterface
+     * True iff game should be terminated due to an external event.
      */
-    private UtilImpl userInterface;
+    private volatile boolean terminate;
 
     /**
      * The max score.
@@ -54,15 +58,49 @@ public class Dealer implements Runnable {
      */
     protected boolean donePlacing;
     /**
-     * The id  of players that their sets need to be checked, by the checking order.
+     * The claims that need to be checked, in the order they were submitted.
      */
-    protected Vector<Integer> playersToCheck;
+    private final MpscQueue<Claim> claims = new MpscQueue<>();
     /**
      * The time when the dealer needs to reshuffle the deck due to turn timeout.
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
-    private final Object lock = new Object();
+    /**
+     * Guards the dealer's wakeups: the dealer waits on the wakeup condition until the next deadline or until woken.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeup = lock.newCondition();
+
+    /**
+     * True iff the dealer was woken since it last went to sleep (guarded by lock).
+     */
+    private boolean woken;
+
+    /**
+     * Refreshes the countdown and the players' freeze times on the screen.
+     */
+    private final DisplayTicker display;
+
+    /**
+     * Drives the computer players.
+     */
+    protected final BotScheduler bots;
+
+    /**
+     * The threads of the players (in the order they were started).
+     */
+    private final Thread[] playerThreads;
+
+    /**
+     * The number of rounds played (i.e. the number of times cards were dealt from a freshly shuffled deck).
+     */
+    private int rounds;
+
+    /**
+     * The number of legal sets collected by the players.
+     */
+    private int setsCollected;
 
 
 
@@ -71,11 +109,13 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        userInterface = new UtilImpl(env.config);
         deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        setTracker = new SetTracker(env);
         maxScore = 0;
-        playersToCheck = new Vector<>();
         donePlacing = false;
+        playerThreads = new Thread[players.length];
+        bots = new BotScheduler(env, table);
+        display = new DisplayTicker(env);
     }
 
     /**
@@ -85,42 +125,67 @@ public class Dealer implements Runnable {
     public void run() {
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
         for (int i=0; i< players.length; i++){
-            Thread PlayerThread = new Thread(players[i], "Player"+players[i].id);
-            PlayerThread.start();
+            playerThreads[i] = Threads.newThread(env, players[i], "Player"+players[i].id);
+            playerThreads[i].start();
         }
+        display.start();
         while (!shouldFinish()) {
+            ++rounds;
         	shuffleDeck(deck);
             placeCardsOnTable();
             timerLoop();
-            updateTimerDisplay(false);
             removeAllCardsFromTable();
         }
         announceWinners();
         terminate();
+        for (int i = playerThreads.length - 1; i >= 0; i--) {
+            try {
+                playerThreads[i].join();
+            } catch (InterruptedException ignored) {}
+        }
+        bots.shutdown();
+        display.shutdown();
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * The inner loop of the dealer thread that runs as long as the countdown did not time out.
+     * The inner loop of the dealer thread that runs as long as the countdown did not time out (or, without a turn
+     * timeout, as long as there is a legal set on the table).
      */
     private void timerLoop(){
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        updateTimerDisplay(true);
+        while (!terminate && System.currentTimeMillis() < reshuffleTime && setTracker.hasSets() && !noSetWithoutTimeout()) {
 
             sleepUntilWokenOrTimeout();
-            if(!playersToCheck.isEmpty()) {
-                int playerId = playersToCheck.remove(playersToCheck.size()-1);
-                if (players[playerId].chosenCards.size()==3) {
-                    checkSet(playerId, players[playerId].chosenCards);
-                }
-                players[playerId].wakePlayer();
-            }
-            updateTimerDisplay(false);
+            arbitrateClaims();
             removeCardsFromTable();
             placeCardsOnTable();
         }
     }
 
+    /**
+     * Checks all the pending claims as a batch. Claims are checked in the order they were submitted (by timestamp),
+     * so when claims share cards, the earliest legal one wins and the later ones are dropped as stale. The table is
+     * refilled and the countdown reset once for the whole batch, before the claimers are woken.
+     */
+    private void arbitrateClaims() {
+        List<Claim> batch = new ArrayList<>();
+        for (Claim claim = claims.poll(); claim != null; claim = claims.poll())
+            batch.add(claim);
+        if (batch.isEmpty()) return;
+        batch.sort((first, second) -> Long.compare(first.nanoTime - second.nanoTime, 0));
+
+        boolean collected = false;
+        for (Claim claim : batch)
+            collected |= checkSet(claim);
+        if (collected) {
+            placeCardsOnTable();
+            updateTimerDisplay(true);
+        }
+        for (Claim claim : batch)
+            players[claim.playerId].wakePlayer();
+    }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
@@ -130,6 +195,7 @@ public class Dealer implements Runnable {
             players[i].terminate();
         }
         terminate = true;
+        wakeDealer();
     }
 
     /**
@@ -138,7 +204,15 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !setTracker.hasSets();
+    }
+
+    /**
+     * @return true iff there is no turn timeout and no legal set among the cards on the (refilled) table, so nothing
+     * but a reshuffle can end the round.
+     */
+    private boolean noSetWithoutTimeout() {
+        return env.config.turnTimeoutMillis <= 0 && table.setIndex.sets().length == 0;
     }
 
     /**
@@ -154,44 +228,57 @@ public class Dealer implements Runnable {
     private void placeCardsOnTable() {
         // TODO implement
         donePlacing = false;
-    	ArrayList<Integer> emptySlots = table.emptySlots;
-    	Collections.shuffle(emptySlots);
-    	for (int i = 0; deck.size()>0 && i< emptySlots.size(); i++)
-    	{
-    		table.placeCard(deck.remove(0), emptySlots.get(i));
-    	}
+        int[] emptySlots = table.emptySlots.stream().toArray();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; deck.size()>0 && i< emptySlots.length; i++)
+        {
+            // place in a random empty slot
+            int j = i + random.nextInt(emptySlots.length - i);
+            int slot = emptySlots[j];
+            emptySlots[j] = emptySlots[i];
+            table.placeCard(deck.remove(deck.size() - 1), slot); // the deck is shuffled, take from its end
+        }
     donePlacing = true;
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until the deck should be reshuffled or until the thread is awakened for some purpose (e.g. a player
+     * submitted cards for check).
      */
     private void sleepUntilWokenOrTimeout() {
-        // TODO implement
-        int sleepTimeMillis = 99;
-        if (reshuffleTime - System.currentTimeMillis() <= env.config.turnTimeoutWarningMillis){
-            sleepTimeMillis = 5;
-        }
+        lock.lock();
         try {
-            Thread.currentThread().sleep(sleepTimeMillis);
-        } catch (InterruptedException e){}
+            long now = System.currentTimeMillis();
+            while (!woken && !terminate && claims.isEmpty() && now < reshuffleTime) {
+                wakeup.await(reshuffleTime - now, TimeUnit.MILLISECONDS);
+                now = System.currentTimeMillis();
+            }
+            woken = false;
+        } catch (InterruptedException ignored) {
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Reset and/or update the countdown and the countdown display.
+     * The display itself is refreshed by the display ticker, this only records when the countdown runs out.
      */
     private void updateTimerDisplay(boolean reset) {
-        // TODO implement
-        if (reset){
-            env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-        }
-        else if(reshuffleTime - System.currentTimeMillis() <= env.config.turnTimeoutWarningMillis){
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), true);
-        }
-        else {
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
-        }
+        if (!reset) return;
+        long now = System.currentTimeMillis();
+        reshuffleTime = env.config.turnTimeoutMillis > 0 ? now + env.config.turnTimeoutMillis : Long.MAX_VALUE;
+        display.resetCountdown(env.config.turnTimeoutMillis > 0 ? reshuffleTime : now);
+    }
+
+    /**
+     * Shows a player's freeze time on the screen, counting down.
+     *
+     * @param player  - the player id.
+     * @param millies - the freeze time, in milliseconds.
+     */
+    public void showFreeze(int player, long millies) {
+        display.freeze(player, millies);
     }
 
     /**
@@ -200,11 +287,13 @@ public class Dealer implements Runnable {
     public void removeAllCardsFromTable() {
         // TODO implement
         for(int i=0; i<players.length; i++){
-            players[i].chosenCards.clear();
+            players[i].clearChosenCards();
         }
-        for (int slot=0; slot<12; slot++){
-            table.removeCard(slot);
-
+        for (int slot=0; slot<table.slotToCard.length; slot++){
+            if (table.slotToCard[slot] != Table.NONE) {
+                deck.add(table.slotToCard[slot]);
+                table.removeCard(slot);
+            }
         }
 
     }
@@ -238,18 +327,35 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * Checks if input cards form a  legal set.
-     * @param cardsVec - cards to check.
-     * @param playerId - the id of the player that sent the cards.
-     * @return true if the cards form a legal set, false otherwise.
+     * Submits a claim for check, and wakes the dealer to check it.
+     * @param claim - the claim.
+     */
+    public void submit(Claim claim) {
+        claims.offer(claim);
+        wakeDealer();
+    }
+
+    /**
+     * Checks if the claimed cards form a legal set. If they do, the cards are burned and removed from the table (the
+     * caller refills it).
+     * Only called by the dealer thread, so it holds no monitor: removing the cards sleeps for the table delay, which
+     * would pin the carrier of a virtual dealer thread inside a synchronized method.
+     * @param claim - the claim to check.
+     * @return true if the cards form a legal set, false otherwise (including claims that are no longer valid).
      */
-    public synchronized boolean checkSet(int playerId, Vector<Integer> cardsVec){
-        int[] cards = new int[cardsVec.size()];
-        for (int i = 0; i < cardsVec.size(); i++) {
-            cards[i] = cardsVec.elementAt(i);
+    public boolean checkSet(Claim claim){
+        int[] cards = claim.cards;
+        Player currPlayer = players[claim.playerId];
+        boolean stale = cards.length != env.config.featureSize;
+        for (int card : cards) {
+            // the card left the table since it was chosen (or the player's tokens were removed from it)
+            if (table.cardToSlot[card] == Table.NONE || !currPlayer.hasChosen(card)) {
+                currPlayer.unchoose(card);
+                stale = true;
+            }
         }
-        boolean ans = userInterface.testSet(cards);
-        Player currPlayer = players[playerId];
+        if (stale) return false;
+        boolean ans = env.util.testSet(cards);
         if (ans){
             for (int i=0; i<players.length; i++){
                 players[i].burnCards(cards);
@@ -258,27 +364,43 @@ public class Dealer implements Runnable {
                 int currSlot = table.cardToSlot[cards[i]];
                 table.removeTokens(currSlot);
                 table.removeCard(currSlot);
-                deck.remove((Integer)cards[i]);
-                table.burnedCards.add((Integer)cards[i]);
+                table.burnedCards.set(cards[i]);
+                setTracker.burn(cards[i]);
 
             }
-            placeCardsOnTable();
-            updateTimerDisplay(true);
+            ++setsCollected;
             currPlayer.isLegalSet = 0;
         }
         else {
             currPlayer.isLegalSet = 1;
         }
-        currPlayer.check=false;
         return ans;
     }
 
     public void wakeDealer(){
-        synchronized (lock){
-            lock.notifyAll();
+        lock.lock();
+        try {
+            woken = true;
+            wakeup.signalAll();
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * @return the number of times the cards on the table were collected and the deck was reshuffled.
+     */
+    public int reshuffles() {
+        return Math.max(rounds - 1, 0);
+    }
+
+    /**
+     * @return the number of legal sets collected by the players.
+     */
+    public int setsCollected() {
+        return setsCollected;
+    }
+
     public void updateMaxScore(int score){
         if (score>maxScore){
             maxScore = score;
@@ -0,0 +1,145 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.Threads;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class refreshes the countdown and the players' freeze times on the screen, at a fixed rate (config.uiFrameRate),
+ * on a thread of its own. The game threads only record the times the timers run out and mark them dirty; a timer is
+ * redrawn when the value it shows changes (whole seconds, or hundredths of a second during the warning window) or it
+ * was marked dirty, so the dealer does no display work at all.
+ */
+class DisplayTicker {
+
+    /**
+     * The resolution of the countdown display during the warning window (it shows hundredths of a second).
+     */
+    private static final long WARNING_TICK_MILLIS = 10;
+
+    /**
+     * The value shown before a timer is first drawn.
+     */
+    private static final long NOT_SHOWN = Long.MIN_VALUE;
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The time the countdown runs out (or, if the countdown shows the elapsed time, the time it was reset).
+     */
+    private volatile long countdownTime = Long.MAX_VALUE;
+
+    /**
+     * True iff the countdown was reset since it was last drawn.
+     */
+    private volatile boolean countdownDirty;
+
+    /**
+     * The times the players' freezes run out (0 if a player was never frozen).
+     */
+    private final AtomicLongArray freezeTimes;
+
+    // the values last drawn (only accessed by the ticking thread)
+
+    private long shownCountdown = NOT_SHOWN;
+    private final long[] shownFreezes;
+
+    /**
+     * Runs the ticks (created when the ticker starts).
+     */
+    private ScheduledExecutorService executor;
+
+    DisplayTicker(Env env) {
+        this.env = env;
+        freezeTimes = new AtomicLongArray(env.config.players);
+        shownFreezes = new long[env.config.players];
+    }
+
+    /**
+     * Starts refreshing the display.
+     */
+    synchronized void start() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(Threads.factory(env, "display-"));
+        long period = TimeUnit.SECONDS.toNanos(1) / env.config.uiFrameRate;
+        executor.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()), 0, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops refreshing the display.
+     */
+    synchronized void shutdown() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * Restarts the countdown.
+     *
+     * @param time - the time the countdown runs out (or, if the countdown shows the elapsed time, the current time).
+     */
+    void resetCountdown(long time) {
+        countdownTime = time;
+        countdownDirty = true;
+    }
+
+    /**
+     * Shows a player's freeze time, counting down.
+     *
+     * @param player  - the player id.
+     * @param millies - the freeze time, in milliseconds.
+     */
+    void freeze(int player, long millies) {
+        freezeTimes.set(player, System.currentTimeMillis() + millies);
+    }
+
+    /**
+     * Redraws the timers whose shown values changed.
+     *
+     * @param now - the current time.
+     */
+    void tick(long now) {
+        if (env.config.turnTimeoutMillis >= 0) tickCountdown(now);
+        for (int player = 0; player < shownFreezes.length; ++player) {
+            long freezeTime = freezeTimes.get(player);
+            if (freezeTime == 0) continue;
+            long seconds = Math.max(0, (freezeTime - now + 999) / 1000); // round up, so the freeze ends at 0
+            if (seconds != shownFreezes[player]) {
+                shownFreezes[player] = seconds;
+                env.ui.setFreeze(player, seconds * 1000);
+            }
+        }
+    }
+
+    private void tickCountdown(long now) {
+        boolean dirty = countdownDirty;
+        if (dirty) countdownDirty = false; // cleared before reading the time, so a later reset is not lost
+        long time = countdownTime;
+        if (time == Long.MAX_VALUE) return;
+
+        if (env.config.turnTimeoutMillis == 0) {
+            long elapsed = Math.max(0, now - time);
+            long shown = elapsed / 1000 * 1000;
+            if (dirty || shown != shownCountdown) {
+                shownCountdown = shown;
+                env.ui.setElapsed(shown);
+            }
+            return;
+        }
+
+        long remaining = Math.max(0, time - now);
+        boolean warn = remaining <= env.config.turnTimeoutWarningMillis;
+        long resolution = warn ? WARNING_TICK_MILLIS : 1000;
+        long shown = remaining / resolution * resolution;
+        if (dirty || shown != shownCountdown) {
+            shownCountdown = shown;
+            env.ui.setCountdown(shown, warn);
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package bguspl.set.ex;
 
-import java.util.Queue;
-import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
-import java.util.Random;
 
 import bguspl.set.Env;
 
@@ -33,14 +34,9 @@ public class Player implements Runnable {
     public final int id;
 
     /**
-     * The thread representing the current player.
+     * The thread representing the current player (set by the thread itself, read by the threads terminating it).
      */
-    private Thread playerThread;
-
-    /**
-     * The thread of the AI (computer) player (an additional thread used to generate key presses).
-     */
-    private Thread aiThread;
+    private volatile Thread playerThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -57,9 +53,10 @@ public class Player implements Runnable {
      */
     private int score;
     /**
-     * -1 default, 0 if the player chose a legal set, 1 if the player chose an illegal set.
+     * -1 default (or if the dealer dropped the claim), 0 if the player chose a legal set, 1 if the player chose an
+     * illegal set. Set by the dealer before it wakes the player.
      */
-    protected int isLegalSet;
+    protected volatile int isLegalSet;
     /**
      * True iff the set of cards is ready to be checked.
      */
@@ -68,26 +65,34 @@ public class Player implements Runnable {
     /**
      * The cards the player placed tokens on.
      */
-    protected Vector<Integer> chosenCards;
-    /**
-     * The cards the player placed tokens on.
-     */
-    protected int[] cardsForCheck;
+    protected final ChosenCards chosenCards;
 
     /**
      * The Dealer.
      */
     private Dealer dealer;
     /**
-     * Queue of incoming actions.
+     * Queue of incoming actions (key presses waiting to be handled by the player thread, in the order they were made).
      */
-    public Vector<Integer> incomingActions;
+    protected final BlockingQueue<Integer> incomingActions;
+
+    /**
+     * The number of key presses handled by the player thread (including the check of the claim they completed) or
+     * dropped from the queue. A computer player compares it with the number of keys it pressed, to choose its next
+     * keys only after its previous ones took effect.
+     */
+    private final AtomicLong settledActions = new AtomicLong();
+
     /**
-     * True iff a player submitted cards for check.
+     * Guards the handshake with the dealer: the player waits on verdictReady until the dealer checked its cards.
      */
-    protected static boolean check = false;
+    protected final ReentrantLock lock = new ReentrantLock();
+    private final Condition verdictReady = lock.newCondition();
 
-    protected final Object lock = new Object();
+    /**
+     * True iff the player submitted cards for check and the dealer did not wake it yet (guarded by lock).
+     */
+    private boolean awaitingVerdict;
 
 
 
@@ -108,9 +113,8 @@ public class Player implements Runnable {
         this.human = human;
         this.dealer = dealer;
         isReadyForCheck = true;
-        chosenCards = new Vector<>();
-        incomingActions = new Vector<>(3);
-        cardsForCheck = new int[3];
+        chosenCards = new ChosenCards(env.config.featureSize);
+        incomingActions = new ArrayBlockingQueue<>(env.config.actionQueueCapacity);
         isLegalSet = -1;
 
     }
@@ -124,22 +128,14 @@ public class Player implements Runnable {
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + "starting.");
         if (!human) createArtificialIntelligence();
         while (!terminate) {
-            // TODO implement main player loop
-            if (!incomingActions.isEmpty()) {
-                press(incomingActions.lastElement());
-                incomingActions.remove(incomingActions.size()-1);
+            try {
+                press(incomingActions.take());
+            } catch (InterruptedException e) {
+                continue; // terminated
             }
-            if (!check && chosenCards.size()==3) {
+            if (chosenCards.size()==env.config.featureSize) {
                 if (isReadyForCheck) {
-                    check = true;
-                    dealer.playersToCheck.add((Integer) id);
-                    try {
-                        synchronized (lock) {
-                            dealer.wakeDealer();
-                            lock.wait();
-                        }
-                    } catch (InterruptedException e) {
-                    }
+                    waitForVerdict();
                 }
                 if (isLegalSet == 1) {
                     penalty();
@@ -150,61 +146,71 @@ public class Player implements Runnable {
                 }
                 isLegalSet = -1;
             }
+            settledActions.incrementAndGet();
         }
-        if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
 
 
     /**
-     * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * Starts the AI (computer) player: the dealer's bot scheduler generates its key presses, a key press every think
+     * time. If the queue of key presses is full, the key press is dropped.
      */
-        private void createArtificialIntelligence() {
+    private void createArtificialIntelligence() {
         // note: this is a very very smart AI (!)
-        aiThread = new Thread(() -> {
-            env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-            while (!terminate) {
-                // TODO implement player key press simulator
-                if (incomingActions.size()<3){
-                    int slot = randomSlot();
-                    keyPressed(slot);
-                }
-//                try {
-//                    synchronized (this) { wait(); }
-//                } catch (InterruptedException ignored) {}
-            }
-            env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
-        aiThread.start();
+        dealer.bots.start(this);
     }
 
     /**
      * Creates random press for the ai players.
      */
     public int randomSlot(){
-        Random rand = new Random();
-        int numOfSlots = env.config.columns*env.config.rows;
-        int slot = rand.nextInt(numOfSlots);
-        return slot;
+        return ThreadLocalRandom.current().nextInt(env.config.tableSize);
+    }
+
+    /**
+     * @return - true iff the player was terminated.
+     */
+    boolean isTerminated() {
+        return terminate;
     }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
         // TODO implement
         terminate = true;
+        Thread thread = playerThread;
+        if (thread != null) thread.interrupt(); // in case it is frozen or waiting for the dealer
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed. The key press is ignored if the queue of key presses is full.
      *
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        // TODO implement
-        incomingActions.add(slot);
+        incomingActions.offer(slot);
+    }
+
+    /**
+     * Submits the chosen cards for check and waits until the dealer checked them (or the game is terminated).
+     */
+    private void waitForVerdict() {
+        lock.lock();
+        try {
+            isLegalSet = -1;
+            awaitingVerdict = true;
+            dealer.submit(new Claim(id, chosenCards.toArray(), System.nanoTime()));
+            while (awaitingVerdict && !terminate)
+                verdictReady.await();
+        } catch (InterruptedException ignored) {
+        } finally {
+            awaitingVerdict = false;
+            lock.unlock();
+        }
     }
 
     /**
@@ -212,15 +218,17 @@ public class Player implements Runnable {
      * @param slot - the slot corresponding to the key pressed.
      */
     public void press(int slot){
+        // a token placed while the dealer burned its card leaves the card chosen after it left the table
+        chosenCards.removeOffTable(table.cardToSlot);
 
-        if(!table.emptySlots.contains(slot)&&dealer.donePlacing) {
-            int card = table.slotToCard[slot];
+        int card = table.slotToCard[slot];
+        if(card != Table.NONE && dealer.donePlacing) {
             if (table.removeToken(id, slot)) {
-                chosenCards.remove((Integer) card);
+                chosenCards.remove(card);
                 if (!isReadyForCheck) {
                     isReadyForCheck = true;
                 }
-            }else if (chosenCards.size() < 3) {
+            }else if (chosenCards.size() < env.config.featureSize) {
                 table.placeToken(id, slot);
                 chosenCards.add(card);
             }
@@ -240,11 +248,12 @@ public class Player implements Runnable {
         env.ui.setScore(id, ++score);
         dealer.updateMaxScore(score);
         long sleepTime = env.config.pointFreezeMillis;
+        dealer.showFreeze(id, sleepTime);
         try {
     		playerThread.sleep(sleepTime);
     	}
     	catch(InterruptedException e){ }
-        incomingActions.clear();
+        dropActions();
     }
     /**
      * Penalize a player and perform other related actions.
@@ -252,11 +261,12 @@ public class Player implements Runnable {
     public void penalty() {
         // TODO implement
         long penaltyTime = env.config.penaltyFreezeMillis;
+        dealer.showFreeze(id, penaltyTime);
     	try {
     		playerThread.sleep(penaltyTime);
     	}
     	catch(InterruptedException e){}
-        incomingActions.clear();
+        dropActions();
     }
 
 
@@ -279,14 +289,14 @@ public class Player implements Runnable {
     public void burnCards(int[] cards){
         for (int i=0; i<cards.length; i++){
         	int slot = table.cardToSlot[cards[i]];
-        	if(table.removeToken(id, slot)){
-                chosenCards.remove((Integer)cards[i]);
+        	if(slot != Table.NONE && table.removeToken(id, slot)){
+                chosenCards.remove(cards[i]);
 
             }
 
 
         }
-        incomingActions.clear();
+        dropActions();
     }
     
     /**
@@ -294,9 +304,49 @@ public class Player implements Runnable {
      * * @param cards - the cards suspected to be a legal set.
      */
 
+    /**
+     * @return - the number of key presses handled or dropped so far.
+     */
+    long settledActions() {
+        return settledActions.get();
+    }
+
+    /**
+     * Drops the key presses waiting in the queue.
+     */
+    private void dropActions() {
+        while (incomingActions.poll() != null)
+            settledActions.incrementAndGet();
+    }
+
+    /**
+     * @return - true iff the player placed a token on the card.
+     */
+    boolean hasChosen(int card) {
+        return chosenCards.contains(card);
+    }
+
+    /**
+     * Forgets a chosen card (e.g. a card that left the table).
+     */
+    void unchoose(int card) {
+        chosenCards.remove(card);
+    }
+
+    /**
+     * Forgets all the chosen cards (when all the cards are removed from the table).
+     */
+    void clearChosenCards() {
+        chosenCards.clear();
+    }
+
     public void wakePlayer(){
-        synchronized (lock){
-            lock.notifyAll();
+        lock.lock();
+        try {
+            awaitingVerdict = false;
+            verdictReady.signalAll();
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -0,0 +1,185 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class keeps track of the legal sets that can still be collected during the game, i.e. the sets whose cards
+ * were not burned yet (whether they are in the dealer's deck or on the table).
+ *
+ * @inv cards[index[card]] == card iff the card was not burned
+ */
+public class SetTracker {
+
+    /**
+     * The maximal number of card combinations to enumerate on every burn in order to keep an exact count of the sets.
+     */
+    private static final long MAX_COMBINATIONS_PER_BURN = 1L << 22;
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * The cards that were not burned (the first size entries).
+     */
+    private final int[] cards;
+
+    /**
+     * The position of each card in the cards array (-1 if burned).
+     */
+    private final int[] index;
+
+    /**
+     * The number of cards that were not burned.
+     */
+    private int size;
+
+    /**
+     * True iff the sets are counted (i.e. the sets through a single card are few enough to enumerate on every burn).
+     * Otherwise, a single witness set is kept and searched for again when one of its cards is burned.
+     */
+    private final boolean counting;
+
+    /**
+     * The number of sets left (when counting).
+     */
+    private long sets;
+
+    /**
+     * A set left (when not counting), or null if it was burned and not searched for since.
+     */
+    private int[] witness;
+
+    /**
+     * True iff no sets are left (when not counting). This is final, as burning cards does not create new sets.
+     */
+    private boolean exhausted;
+
+    /**
+     * Scratch space for the cards of the set being completed.
+     */
+    private final int[] scratch;
+
+    /**
+     * @param env - the game environment object (all the cards in the deck are considered not burned).
+     */
+    public SetTracker(Env env) {
+        this.env = env;
+        setSize = env.config.featureSize;
+        size = env.config.deckSize;
+        cards = new int[size];
+        index = new int[size];
+        for (int card = 0; card < size; ++card) {
+            cards[card] = card;
+            index[card] = card;
+        }
+        scratch = new int[Math.max(setSize - 1, 0)];
+
+        counting = setSize >= 3 && combinations(size - 1, setSize - 2) <= MAX_COMBINATIONS_PER_BURN;
+        if (counting) sets = countAllSets(env.config.featureCount, setSize);
+    }
+
+    /**
+     * @return - true iff there is at least one legal set among the cards that were not burned.
+     */
+    public synchronized boolean hasSets() {
+        if (counting) return sets > 0;
+        if (exhausted) return false;
+        if (witness != null) return true;
+
+        List<Integer> deck = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i)
+            deck.add(cards[i]);
+        List<int[]> found = env.util.findSets(deck, 1);
+        if (found.isEmpty()) exhausted = true;
+        else witness = found.get(0);
+        return !exhausted;
+    }
+
+    /**
+     * @return - the number of legal sets left, or -1 if they are not counted (see hasSets).
+     */
+    public synchronized long countSets() {
+        return counting ? sets : -1;
+    }
+
+    /**
+     * Takes a card out of the game, along with every set it is part of.
+     *
+     * @param card - the burned card.
+     */
+    public synchronized void burn(int card) {
+        int position = index[card];
+        if (position < 0) return;
+
+        // swap the card with the last card that was not burned
+        cards[position] = cards[--size];
+        index[cards[position]] = position;
+        index[card] = -1;
+
+        if (counting) sets -= countSetsWith(card);
+        else if (witness != null)
+            for (int witnessCard : witness)
+                if (witnessCard == card) witness = null;
+    }
+
+    /**
+     * Counts the sets that include the given card among the cards that were not burned. Walks over all combinations of
+     * setSize - 2 other cards and looks up the card completing each combination (with the given card) to a set.
+     */
+    private long countSetsWith(int card) {
+        int k = setSize - 2;
+        int[] combination = new int[k];
+        for (int i = 0; i < k; ++i)
+            combination[i] = i;
+
+        long count = 0;
+        scratch[0] = card;
+        while (k <= size && combination[0] <= size - k) {
+            for (int i = 0; i < k; ++i)
+                scratch[i + 1] = cards[combination[i]];
+            int last = env.util.completeSet(scratch);
+            if (last >= 0 && index[last] > combination[k - 1]) // each set is counted once, by its first cards
+                ++count;
+
+            // generate next combination in lexicographic order
+            int t = k - 1;
+            while (t != 0 && combination[t] == size - k + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < k; i++) combination[i] = combination[i - 1] + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Counts the legal sets in a full deck. An ordered set is a choice, per feature, of either a single value for all
+     * the cards or an arrangement of all the values, excluding the choices where all the cards are identical.
+     */
+    private static long countAllSets(int featureCount, int featureSize) {
+        long arrangements = 1;
+        for (int i = 2; i <= featureSize; ++i)
+            arrangements *= i;
+        long ordered = 1, identical = 1;
+        for (int i = 0; i < featureCount; ++i) {
+            ordered *= featureSize + arrangements;
+            identical *= featureSize;
+        }
+        return (ordered - identical) / arrangements;
+    }
+
+    private static long combinations(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k && result <= MAX_COMBINATIONS_PER_BURN; ++i)
+            result = result * (n - k + i) / i;
+        return result;
+    }
+}
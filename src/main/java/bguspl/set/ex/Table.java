@@ -8,58 +8,75 @@ import java.util.stream.Collectors;
 /**
  * This class contains the data that is visible to the player.
  *
- * @inv slotToCard[x] == y iff cardToSlot[y] == x
+ * @inv slotToCard[x] == y iff cardToSlot[y] == x (for y != NONE)
  */
 public class Table {
 
+    /**
+     * The value of an empty slot in slotToCard, and of a card that is not on the table in cardToSlot.
+     */
+    public static final int NONE = -1;
+
     /**
      * The game environment object.
      */
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * Mapping between a slot and the card placed in it (NONE if none).
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    protected final int[] slotToCard; // card per slot (if any)
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * Mapping between a card and the slot it is in (NONE if none).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
-    
-    
+    protected final int[] cardToSlot; // slot per card (if any)
+
     /**
-     * Mapping between a token and the slot it is in .
+     * The tokens of the players on each slot.
      */
-    protected ArrayList<Integer>[] tokens = new ArrayList[12];
+    protected final TokenStore tokens;
     
     /**
-     * The current empty slots .
+     * The current empty slots (a set bit per empty slot).
      */
-    protected ArrayList<Integer> emptySlots;
+    protected final BitSet emptySlots;
+
     /**
-     * All the card that have been taken out of the game .
+     * All the cards that have been taken out of the game (a set bit per burned card).
      */
-    protected Vector<Integer> burnedCards;
+    protected final BitSet burnedCards;
+
+    /**
+     * The legal sets among the cards on the table.
+     */
+    protected final TableSetIndex setIndex;
+
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (NONE if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (NONE if none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
 
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        emptySlots = new ArrayList<Integer>();
-        for(int i = 0;i<tokens.length;i++)
-        {
-        	tokens[i] = new ArrayList<Integer>(0);
-        	emptySlots.add(i);
-        }
-        burnedCards = new Vector<>();
+        tokens = new TokenStore(slotToCard.length, env.config.players);
+        emptySlots = new BitSet(slotToCard.length);
+        emptySlots.set(0, slotToCard.length);
+        burnedCards = new BitSet(cardToSlot.length);
+        setIndex = new TableSetIndex(env, cardToSlot);
+        for (int card : slotToCard)
+            if (card != NONE) setIndex.add(card);
+    }
+
+    private static int[] noneArray(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, NONE);
+        return array;
     }
 
     /**
@@ -69,15 +86,15 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, noneArray(env.config.tableSize), noneArray(env.config.deckSize));
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        List<Integer> deck = Arrays.stream(slotToCard).filter(card -> card != NONE).boxed().collect(Collectors.toList());
+        env.util.streamSets(deck).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
@@ -92,8 +109,8 @@ public class Table {
      */
     public int countCards() {
         int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
+        for (int card : slotToCard)
+            if (card != NONE)
                 ++cards;
         return cards;
     }
@@ -112,10 +129,11 @@ public class Table {
 
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
-        
+        setIndex.add(card);
+
         // TODO implement
         env.ui.placeCard(card, slot);
-        emptySlots.remove((Integer)slot);
+        emptySlots.clear(slot);
     }
 
     /**
@@ -128,12 +146,13 @@ public class Table {
         } catch (InterruptedException ignored) {}
 
         // TODO implement
-        emptySlots.add(slot);
+        emptySlots.set(slot);
         removeTokens(slot);
         env.ui.removeCard(slot);
         int card = slotToCard[slot];
-        cardToSlot[card] = null;
-        slotToCard[slot] = null;
+        setIndex.remove(card);
+        cardToSlot[card] = NONE;
+        slotToCard[slot] = NONE;
         
     }
 
@@ -143,11 +162,8 @@ public class Table {
      * @param slot   - the slot on which to place the token.
      */
     public void placeToken(int player, int slot) {
-        // TODO implement
-        ArrayList<Integer> currSlot = tokens[slot];
-        tokens[slot].add(player);
-        env.ui.placeToken(player, slot);
-
+        if (tokens.place(player, slot))
+            env.ui.placeToken(player, slot);
     }
     
 
@@ -158,19 +174,9 @@ public class Table {
      * @return       - true iff a token was successfully removed.
      */
     public boolean removeToken(int player, int slot) {
-        // TODO implement
-
-    	ArrayList<Integer> currSlot = tokens[slot];
-
-        for (int currPlayer:currSlot)
-        {
-            if (currPlayer == player){
-                env.ui.removeToken(player, slot);
-                currSlot.remove((Integer) currPlayer);
-                return true;
-            }
-        }
-        return false;
+        if (!tokens.remove(player, slot)) return false;
+        env.ui.removeToken(player, slot);
+        return true;
     }
     
     /**
@@ -178,12 +184,7 @@ public class Table {
      * @param slot   - the slot from which to remove the tokens.
      */
     public void removeTokens(int slot) {
-    	ArrayList<Integer> currSlot = tokens[slot];
-		for(int currPlayer:currSlot) {
-		    env.ui.removeToken(currPlayer, slot);
-		}
-		currSlot.clear();
-    	
+        tokens.clear(slot, player -> env.ui.removeToken(player, slot));
     }
 
     
@@ -0,0 +1,156 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class keeps the legal sets among the cards on the table up to date, as cards are placed and removed.
+ * Placing a card looks up the card completing it, with every combination of featureSize - 2 other cards on the table,
+ * to a set (or tests every pair, for sets of 2 cards). Removing a card drops the sets it is part of.
+ * The sets are published as an immutable snapshot, so readers (e.g. the computer players) never block the dealer.
+ *
+ * @inv cards[index[card]] == card iff the card is on the table
+ */
+class TableSetIndex {
+
+    private static final int[][] NO_SETS = new int[0][];
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * Mapping between a card and the slot it is in (Table.NONE if none), shared with the table.
+     */
+    private final int[] cardToSlot;
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * The cards on the table (the first size entries).
+     */
+    private final int[] cards;
+
+    /**
+     * The position of each card in the cards array (-1 if not on the table).
+     */
+    private final int[] index;
+
+    /**
+     * The number of cards on the table.
+     */
+    private int size;
+
+    /**
+     * Scratch space for the combination of other cards and for the cards of the set being completed.
+     */
+    private final int[] combination;
+    private final int[] scratch;
+
+    /**
+     * The legal sets among the cards on the table (each sorted by card id).
+     */
+    private volatile int[][] sets = NO_SETS;
+
+    /**
+     * @param env        - the game environment object.
+     * @param cardToSlot - mapping between a card and the slot it is in (Table.NONE if none), shared with the table.
+     */
+    TableSetIndex(Env env, int[] cardToSlot) {
+        this.env = env;
+        this.cardToSlot = cardToSlot;
+        setSize = env.config.featureSize;
+        cards = new int[env.config.tableSize];
+        index = new int[env.config.deckSize];
+        Arrays.fill(index, -1);
+        combination = new int[Math.max(setSize - 2, 0)];
+        scratch = new int[Math.max(setSize - 1, 0)];
+    }
+
+    /**
+     * @return - the legal sets among the cards on the table (the caller must not modify them).
+     */
+    int[][] sets() {
+        return sets;
+    }
+
+    /**
+     * Adds the sets a card placed on the table completes.
+     *
+     * @param card - the card placed on the table (after it was added to cardToSlot).
+     */
+    synchronized void add(int card) {
+        if (index[card] >= 0) return;
+        List<int[]> added = new ArrayList<>();
+        int k = setSize - 2;
+        if (k == 0) { // completing a single card is not supported, test the pairs instead
+            for (int i = 0; i < size; ++i) {
+                int other = cards[i];
+                int[] set = {Math.min(card, other), Math.max(card, other)};
+                if (env.util.testSet(set)) added.add(set);
+            }
+        } else if (k > 0 && size >= k) {
+            for (int i = 0; i < k; ++i)
+                combination[i] = i;
+            scratch[0] = card;
+
+            while (true) {
+                for (int i = 0; i < k; ++i)
+                    scratch[i + 1] = cards[combination[i]];
+                int last = env.util.completeSet(scratch);
+                // each set is added once, by its first cards
+                if (last >= 0 && last != card && cardToSlot[last] != Table.NONE
+                        && index[last] > combination[k - 1]) {
+                    int[] set = Arrays.copyOf(scratch, setSize);
+                    set[setSize - 1] = last;
+                    Arrays.sort(set);
+                    added.add(set);
+                }
+
+                // generate next combination in lexicographic order
+                int t = k - 1;
+                while (t >= 0 && combination[t] == size - k + t) --t;
+                if (t < 0) break;
+                combination[t]++;
+                for (int i = t + 1; i < k; i++) combination[i] = combination[i - 1] + 1;
+            }
+        }
+        cards[size] = card;
+        index[card] = size++;
+
+        if (!added.isEmpty()) {
+            int[][] updated = Arrays.copyOf(sets, sets.length + added.size());
+            for (int i = 0; i < added.size(); ++i)
+                updated[sets.length + i] = added.get(i);
+            sets = updated;
+        }
+    }
+
+    /**
+     * Drops the sets a card removed from the table was part of.
+     *
+     * @param card - the card removed from the table.
+     */
+    synchronized void remove(int card) {
+        int position = index[card];
+        if (position < 0) return;
+
+        // swap the card with the last card on the table
+        cards[position] = cards[--size];
+        index[cards[position]] = position;
+        index[card] = -1;
+
+        int[][] updated = new int[sets.length][];
+        int count = 0;
+        for (int[] set : sets)
+            if (Arrays.binarySearch(set, card) < 0) updated[count++] = set;
+        if (count < sets.length) sets = count == 0 ? NO_SETS : Arrays.copyOf(updated, count);
+    }
+}
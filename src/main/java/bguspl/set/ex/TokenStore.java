@@ -0,0 +1,120 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * The tokens the players placed on the table: a bitmask of players per slot, updated with lock-free CAS operations.
+ * The bitmask of a slot takes a long per 64 players (a stripe), so a slot of a game with up to 64 players is a single
+ * long, and reading which players hold the slot is a single read.
+ *
+ * @inv the bit (player % 64) of masks[slot * stripes + player / 64] is set iff player has a token on slot
+ */
+public class TokenStore {
+
+    /**
+     * The number of longs per slot.
+     */
+    private final int stripes;
+
+    /**
+     * The bitmasks of the slots (stripes longs per slot).
+     */
+    private final AtomicLongArray masks;
+
+    /**
+     * @param slots   - the number of slots on the table.
+     * @param players - the number of players.
+     */
+    public TokenStore(int slots, int players) {
+        stripes = Math.max(1, (players + Long.SIZE - 1) / Long.SIZE);
+        masks = new AtomicLongArray(slots * stripes);
+    }
+
+    private int index(int player, int slot) {
+        return slot * stripes + player / Long.SIZE;
+    }
+
+    /**
+     * Places a token of a player on a slot.
+     *
+     * @return - true iff the player did not have a token on the slot.
+     */
+    public boolean place(int player, int slot) {
+        int index = index(player, slot);
+        long bit = 1L << player;
+        long mask;
+        do {
+            mask = masks.get(index);
+            if ((mask & bit) != 0) return false;
+        } while (!masks.compareAndSet(index, mask, mask | bit));
+        return true;
+    }
+
+    /**
+     * Removes the token of a player from a slot.
+     *
+     * @return - true iff the player had a token on the slot.
+     */
+    public boolean remove(int player, int slot) {
+        int index = index(player, slot);
+        long bit = 1L << player;
+        long mask;
+        do {
+            mask = masks.get(index);
+            if ((mask & bit) == 0) return false;
+        } while (!masks.compareAndSet(index, mask, mask & ~bit));
+        return true;
+    }
+
+    /**
+     * Removes all the tokens from a slot.
+     *
+     * @param removed - called with every player whose token was removed.
+     */
+    public void clear(int slot, IntConsumer removed) {
+        for (int stripe = 0; stripe < stripes; ++stripe) {
+            long mask = masks.getAndSet(slot * stripes + stripe, 0);
+            for (; mask != 0; mask &= mask - 1)
+                removed.accept(stripe * Long.SIZE + Long.numberOfTrailingZeros(mask));
+        }
+    }
+
+    /**
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean has(int player, int slot) {
+        return (masks.get(index(player, slot)) & (1L << player)) != 0;
+    }
+
+    /**
+     * @return - the players with a token on the slot, as a bitmask of players 0 to 63.
+     */
+    public long mask(int slot) {
+        return masks.get(slot * stripes);
+    }
+
+    /**
+     * @return - the players with a token on the slot, as a bitmask of players 64 * stripe to 64 * stripe + 63.
+     */
+    public long mask(int slot, int stripe) {
+        return masks.get(slot * stripes + stripe);
+    }
+
+    /**
+     * @return - the number of longs per slot.
+     */
+    public int stripes() {
+        return stripes;
+    }
+
+    /**
+     * @return - the number of tokens on the slot.
+     */
+    public int count(int slot) {
+        int count = 0;
+        for (int stripe = 0; stripe < stripes; ++stripe)
+            count += Long.bitCount(masks.get(slot * stripes + stripe));
+        return count;
+    }
+}
@@ -0,0 +1,125 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogHandlerTest {
+
+    private static Logger logger(AsyncLogHandler handler, Level level) {
+        Logger logger = new TestEnv.MockLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        Main.setLoggerLevelAndFormat(logger, level, "[%2$s] %3$s%n");
+        return logger;
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static String readGzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            byte[] buffer = new byte[1 << 16];
+            StringBuilder text = new StringBuilder();
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+                text.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+            return text.toString();
+        }
+    }
+
+    @Test
+    void publish_formatsParametersOnFlush(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("set.log");
+        AsyncLogHandler handler = new AsyncLogHandler(file, 16, 0, 2);
+        Logger logger = logger(handler, Level.ALL);
+
+        logger.log(EventLevel.EVENT, "placing card {0} in slot {1}", new Object[]{80, 11});
+        logger.log(EventLevel.EVENT, "updating countdown to {0}", 60000L);
+        logger.severe("no {parameters}");
+        logger.log(Level.INFO, "{1}{0} {2} {12} {012} {-1} {", new Object[]{"a", "b", "c"});
+        handler.flush();
+
+        String separator = System.lineSeparator();
+        assertEquals("[EVENT] placing card 80 in slot 11" + separator + "[EVENT] updating countdown to 60000" + separator
+                + "[SEVERE] no {parameters}" + separator + "[INFO] ba c {12} {012} {-1} {" + separator, read(file));
+        handler.close();
+    }
+
+    @Test
+    void publish_eventLevelOff(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("set.log");
+        AsyncLogHandler handler = new AsyncLogHandler(file, 16, 0, 2);
+        Logger logger = logger(handler, EventLevel.parse("INFO"));
+
+        assertFalse(logger.isLoggable(EventLevel.EVENT));
+        logger.log(EventLevel.EVENT, "key {0} was pressed by player {1}", new Object[]{81, 1});
+        logger.info("thread main starting.");
+        handler.flush();
+
+        assertEquals("[INFO] thread main starting." + System.lineSeparator(), read(file));
+        handler.close();
+    }
+
+    @Test
+    void rotate_keepsCompressedFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("set.log");
+        Files.write(file, "previous run\n".getBytes(StandardCharsets.UTF_8));
+        AsyncLogHandler handler = new AsyncLogHandler(file, 16, 100, 2);
+        assertEquals("previous run\n", readGzip(directory.resolve("set.log.1.gz")));
+
+        Logger logger = logger(handler, Level.ALL);
+        for (int i = 0; i < 50; ++i) {
+            logger.info("record " + i + " of a line long enough to fill the file");
+            handler.flush();
+        }
+        handler.close();
+
+        assertTrue(Files.exists(directory.resolve("set.log.2.gz")));
+        assertFalse(Files.exists(directory.resolve("set.log.3.gz")));
+        assertTrue(read(file).endsWith("record 49 of a line long enough to fill the file" + System.lineSeparator())
+                || read(file).isEmpty());
+        assertTrue(readGzip(directory.resolve("set.log.1.gz")).contains("record 4"));
+    }
+
+    @Test
+    void rotate_failureKeepsLogging(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("set.log");
+        Files.createDirectories(directory.resolve("set.log.1.gz.tmp").resolve("blocked")); // the rotation cannot compress
+        AsyncLogHandler handler = new AsyncLogHandler(file, 16, 100, 2);
+        AtomicInteger errors = new AtomicInteger();
+        handler.setErrorManager(new ErrorManager() {
+            @Override
+            public synchronized void error(String msg, Exception ex, int code) {
+                errors.incrementAndGet();
+            }
+        });
+
+        Logger logger = logger(handler, Level.ALL);
+        for (int i = 0; i < 10; ++i) {
+            logger.info("record " + i + " of a line long enough to fill the file");
+            handler.flush();
+        }
+        handler.close();
+
+        assertTrue(errors.get() > 0);
+        assertFalse(Files.exists(directory.resolve("set.log.1.gz")));
+        String log = read(file);
+        assertTrue(log.startsWith("[INFO] record 0 "));
+        assertTrue(log.endsWith("record 9 of a line long enough to fill the file" + System.lineSeparator()));
+    }
+}
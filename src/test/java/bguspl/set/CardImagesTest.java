@@ -0,0 +1,68 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardImagesTest {
+
+    private static final int WIDTH = 26;
+    private static final int HEIGHT = 17;
+
+    private static Config config(int featureCount, Path cacheDirectory) {
+        Properties properties = new Properties();
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("CacheDirectory", cacheDirectory.toString());
+        return TestEnv.config(properties);
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    @Test
+    void card_scaledToCell(@TempDir Path cacheDirectory) throws InterruptedException {
+        CardImages images = CardImages.open(config(4, cacheDirectory), WIDTH, HEIGHT, new TestEnv.MockLogger());
+        BufferedImage card = images.card(80);
+        assertNotNull(card);
+        assertEquals(WIDTH, card.getWidth());
+        assertEquals(HEIGHT, card.getHeight());
+        assertNotNull(images.emptyCard());
+        images.awaitLoaded();
+    }
+
+    @Test
+    void card_noImage(@TempDir Path cacheDirectory) throws InterruptedException {
+        CardImages images = CardImages.open(config(5, cacheDirectory), WIDTH, HEIGHT, new TestEnv.MockLogger());
+        assertNull(images.card(0));
+        assertNotNull(images.emptyCard());
+        images.awaitLoaded();
+    }
+
+    @Test
+    void open_cachedImagesMatchDecoded(@TempDir Path cacheDirectory) throws Exception {
+        Config config = config(4, cacheDirectory);
+        CardImages decoded = CardImages.open(config, WIDTH, HEIGHT, new TestEnv.MockLogger());
+        decoded.awaitLoaded();
+        Path cache = cacheDirectory.resolve("card-images-4x3-" + WIDTH + "x" + HEIGHT + ".bin");
+        assertTrue(Files.isRegularFile(cache));
+        long modified = Files.getLastModifiedTime(cache).toMillis();
+
+        CardImages cached = CardImages.open(config, WIDTH, HEIGHT, new TestEnv.MockLogger());
+        for (int card = 0; card < config.deckSize; ++card)
+            assertArrayEquals(pixels(decoded.card(card)), pixels(cached.card(card)));
+        assertArrayEquals(pixels(decoded.emptyCard()), pixels(cached.emptyCard()));
+        cached.awaitLoaded();
+        assertEquals(modified, Files.getLastModifiedTime(cache).toMillis()); // not written again
+    }
+}
@@ -0,0 +1,58 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscQueueTest {
+
+    @Test
+    void poll_fifo() {
+        MpscQueue<Integer> queue = new MpscQueue<>();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 10; ++i)
+            queue.offer(i);
+        for (int i = 0; i < 10; ++i)
+            assertEquals(i, queue.poll());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void poll_concurrentProducers() throws InterruptedException {
+        int producers = 4, perProducer = 100000;
+        MpscQueue<long[]> queue = new MpscQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; ++p) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < perProducer; ++i)
+                    queue.offer(new long[]{producer, i});
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        // every element is polled exactly once, and the elements of each producer in order
+        long[] next = new long[producers];
+        for (int polled = 0; polled < producers * perProducer; ) {
+            long[] element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(next[(int) element[0]]++, element[1]);
+            ++polled;
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    @Test
+    void offer_failsWhenFull() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(6);
+        assertEquals(8, ring.capacity());
+        assertNull(ring.poll());
+
+        for (int i = 0; i < 8; ++i)
+            assertTrue(ring.offer(i));
+        assertFalse(ring.offer(8));
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(8));
+
+        for (int i = 1; i <= 8; ++i)
+            assertEquals(i, ring.poll());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void poll_concurrentProducers() throws InterruptedException {
+        int producers = 4, perProducer = 100000;
+        MpscRingBuffer<long[]> ring = new MpscRingBuffer<>(64);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; ++p) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < perProducer; ++i)
+                    while (!ring.offer(new long[]{producer, i}))
+                        Thread.yield();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        // every element is polled exactly once, and the elements of each producer in order
+        long[] next = new long[producers];
+        for (int polled = 0; polled < producers * perProducer; ) {
+            long[] element = ring.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(next[(int) element[0]]++, element[1]);
+            ++polled;
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertNull(ring.poll());
+    }
+}
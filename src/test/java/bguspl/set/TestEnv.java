@@ -0,0 +1,90 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The environment the tests run in: the given properties on top of the defaults (the configuration files are purposely
+ * not read), a silent logger and user interface, and the real util.
+ */
+public final class TestEnv {
+
+    private TestEnv() {}
+
+    public static Config config(Properties properties) {
+        return new Config(new MockLogger(), properties);
+    }
+
+    public static Env env(Properties properties) {
+        Logger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+    }
+
+    /**
+     * @return - the whole deck, shuffled with a seed, so a failing test fails the same way every run.
+     */
+    public static List<Integer> shuffledDeck(Env env, Random random) {
+        List<Integer> deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, random);
+        return deck;
+    }
+
+    /**
+     * @return - every legal set among the cards, found by a full search, each as a sorted string (in sorted order).
+     */
+    public static List<String> allSets(Env env, List<Integer> cards) {
+        List<int[]> sets = cards.isEmpty() ? Collections.emptyList() : env.util.findSets(cards, Integer.MAX_VALUE);
+        return sorted(sets);
+    }
+
+    /**
+     * @return - the sets, each as a sorted string (in sorted order), to compare sets found in a different order.
+     */
+    public static List<String> sorted(List<int[]> sets) {
+        return sets.stream().map(set -> {
+            int[] copy = set.clone();
+            Arrays.sort(copy);
+            return Arrays.toString(copy);
+        }).sorted().collect(Collectors.toList());
+    }
+
+    public static class MockLogger extends Logger {
+        public MockLogger() {
+            super("", null);
+        }
+    }
+
+    public static class MockUserInterface implements UserInterface {
+        @Override
+        public void dispose() {}
+        @Override
+        public void placeCard(int card, int slot) {}
+        @Override
+        public void removeCard(int slot) {}
+        @Override
+        public void setCountdown(long millies, boolean warn) {}
+        @Override
+        public void setElapsed(long millies) {}
+        @Override
+        public void setScore(int player, int score) {}
+        @Override
+        public void setFreeze(int player, long millies) {}
+        @Override
+        public void placeToken(int player, int slot) {}
+        @Override
+        public void removeTokens() {}
+        @Override
+        public void removeTokens(int slot) {}
+        @Override
+        public void removeToken(int player, int slot) {}
+        @Override
+        public void announceWinner(int[] players) {}
+    }
+}
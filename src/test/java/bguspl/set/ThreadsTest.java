@@ -0,0 +1,60 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThreadsTest {
+
+    private static Env env(boolean virtualThreads) {
+        Properties properties = new Properties();
+        properties.put("VirtualThreads", Boolean.toString(virtualThreads));
+        return TestEnv.env(properties);
+    }
+
+    private static void assertRuns(Thread thread) throws InterruptedException {
+        assertEquals(Thread.State.NEW, thread.getState());
+        thread.start();
+        thread.join();
+    }
+
+    @Test
+    void newThread_platform() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = Threads.newThread(env(false), () -> ran.set(true), "dealer");
+        assertEquals("dealer", thread.getName());
+        assertFalse(thread.isDaemon());
+        assertRuns(thread);
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void virtualThreadsAvailable_onJdk21() {
+        // set by the jdk21 profile, so the virtual thread tests there do not silently test the fallback
+        if (Boolean.getBoolean("set.virtualThreads.expected"))
+            assertTrue(Threads.virtualThreadsAvailable());
+    }
+
+    @Test
+    void newThread_virtual() throws InterruptedException {
+        // falls back to a platform thread if the JVM has no virtual threads
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = Threads.newThread(env(true), () -> ran.set(true), "Player0");
+        assertEquals("Player0", thread.getName());
+        assertEquals(Threads.virtualThreadsAvailable(), thread.isDaemon());
+        assertRuns(thread);
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void factory_daemonThreads() {
+        Thread first = Threads.factory(env(true), "computers-").newThread(() -> {});
+        assertEquals("computers-0", first.getName());
+        assertTrue(first.isDaemon());
+    }
+}
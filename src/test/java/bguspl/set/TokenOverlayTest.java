@@ -0,0 +1,75 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenOverlayTest {
+
+    private static String[] names(int players) {
+        String[] names = new String[players];
+        Arrays.setAll(names, i -> "P" + i);
+        return names;
+    }
+
+    @Test
+    void label_playersInIdOrder() {
+        TokenOverlay overlay = new TokenOverlay(names(4), 12);
+        assertEquals("", overlay.label(5));
+
+        assertTrue(overlay.place(3, 5));
+        assertTrue(overlay.place(1, 5));
+        assertFalse(overlay.place(1, 5));
+        assertEquals("P1, P3", overlay.label(5));
+        assertEquals("", overlay.label(4));
+
+        assertTrue(overlay.remove(3, 5));
+        assertFalse(overlay.remove(3, 5));
+        assertEquals("P1", overlay.label(5));
+    }
+
+    @Test
+    void clear_onlyChangesOccupiedSlots() {
+        TokenOverlay overlay = new TokenOverlay(names(2), 12);
+        overlay.place(0, 2);
+        assertFalse(overlay.clear(3));
+        assertTrue(overlay.clear(2));
+        assertFalse(overlay.clear(2));
+        assertEquals("", overlay.label(2));
+    }
+
+    @Test
+    void label_manyPlayers() {
+        TokenOverlay overlay = new TokenOverlay(names(130), 4);
+        overlay.place(129, 1);
+        overlay.place(63, 1);
+        overlay.place(64, 1);
+        overlay.place(0, 1);
+        assertEquals("P0, P63, P64, P129", overlay.label(1));
+
+        overlay.remove(64, 1);
+        assertEquals("P0, P63, P129", overlay.label(1));
+        assertTrue(overlay.clear(1));
+        assertEquals("", overlay.label(1));
+    }
+
+    @Test
+    void label_cachedCombinations() {
+        TokenOverlay overlay = new TokenOverlay(names(14), 1);
+        for (int round = 0; round < 2; ++round)
+            for (int mask = 1; mask < 1 << 14; ++mask) {
+                StringBuilder expected = new StringBuilder();
+                for (int player = 0; player < 14; ++player)
+                    if ((mask & 1 << player) != 0) {
+                        overlay.place(player, 0);
+                        expected.append(expected.length() > 0 ? ", P" : "P").append(player);
+                    }
+                assertEquals(expected.toString(), overlay.label(0));
+                overlay.clear(0);
+            }
+    }
+}
@@ -0,0 +1,99 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Properties;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class UserInterfaceDispatcherTest {
+
+    @Mock
+    private UserInterface ui;
+
+    private UserInterfaceDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new UserInterfaceDispatcher(TestEnv.config(new Properties()), ui);
+    }
+
+    @Test
+    void post_appliedOnlyWhenDrained() {
+        dispatcher.placeCard(7, 2);
+        dispatcher.setScore(1, 3);
+        verifyNoInteractions(ui);
+
+        dispatcher.drain();
+        verify(ui).placeCard(7, 2);
+        verify(ui).setScore(1, 3);
+    }
+
+    @Test
+    void drain_coalescesCountdownAndScores() {
+        for (long millies = 5000; millies > 0; millies -= 10)
+            dispatcher.setCountdown(millies, true);
+        dispatcher.setScore(0, 1);
+        dispatcher.setScore(0, 2);
+        dispatcher.drain();
+
+        verify(ui).setCountdown(10, true);
+        verify(ui, never()).setCountdown(5000, true);
+        verify(ui).setScore(0, 2);
+        verify(ui, never()).setScore(0, 1);
+    }
+
+    @Test
+    void drain_coalescesCardsPerSlot() {
+        dispatcher.placeCard(4, 0);
+        dispatcher.removeCard(0);
+        dispatcher.removeCard(1);
+        dispatcher.placeCard(5, 1);
+        dispatcher.drain();
+
+        verify(ui).removeCard(0);
+        verify(ui).placeCard(5, 1);
+        verify(ui, never()).placeCard(4, 0);
+        verify(ui, never()).removeCard(1);
+    }
+
+    @Test
+    void drain_keepsTokenOrder() {
+        dispatcher.placeToken(0, 3);
+        dispatcher.removeTokens(3);
+        dispatcher.placeToken(1, 3);
+        dispatcher.drain();
+
+        InOrder order = inOrder(ui);
+        order.verify(ui).placeToken(0, 3);
+        order.verify(ui).removeTokens(3);
+        order.verify(ui).placeToken(1, 3);
+    }
+
+    @Test
+    void dispose_appliesPendingUpdatesFirst() {
+        dispatcher.setFreeze(1, 1000);
+        dispatcher.dispose();
+        dispatcher.setElapsed(1000); // posted after dispose, never applied
+        dispatcher.drain();
+
+        InOrder order = inOrder(ui);
+        order.verify(ui).setFreeze(1, 1000);
+        order.verify(ui).dispose();
+        verify(ui, never()).setElapsed(anyLong());
+        verify(ui, never()).setCountdown(anyLong(), anyBoolean());
+        verify(ui, never()).removeToken(anyInt(), anyInt());
+    }
+}
@@ -0,0 +1,205 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private static Config config(int featureCount, int featureSize) {
+        return config(featureCount, featureSize, new Properties());
+    }
+
+    private static Config config(int featureCount, int featureSize, Properties properties) {
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        return TestEnv.config(properties);
+    }
+
+    /**
+     * The rules, spelled out: every feature is either the same on all cards or different on all cards.
+     */
+    private static boolean isSet(Util util, int[] cards) {
+        int[][] features = util.cardsToFeatures(cards);
+        for (int i = 0; i < features[0].length; ++i) {
+            boolean sameSame = true, butDifferent = true;
+            for (int j = 0; j < cards.length; ++j)
+                for (int k = j + 1; k < cards.length; ++k)
+                    if (features[j][i] == features[k][i]) butDifferent = false;
+                    else sameSame = false;
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+
+    private static void assertTestSetMatchesRules(int featureCount, int featureSize) {
+        Config config = config(featureCount, featureSize);
+        Util util = new UtilImpl(config);
+        Random random = new Random(featureCount * 31L + featureSize);
+        for (int attempt = 0; attempt < 10_000; ++attempt) {
+            int[] cards = random.ints(featureSize, 0, config.deckSize).toArray();
+            assertEquals(isSet(util, cards), util.testSet(cards));
+        }
+    }
+
+    @Test
+    void testSet_defaultDeck() {
+        Util util = new UtilImpl(config(4, 3));
+        assertTrue(util.testSet(new int[]{0, 1, 2}));    // 0000, 0001, 0002
+        assertTrue(util.testSet(new int[]{0, 40, 80}));  // 0000, 1111, 2222
+        assertFalse(util.testSet(new int[]{0, 1, 3}));   // 0000, 0001, 0010
+        assertFalse(util.testSet(new int[]{0, 0, 1}));
+    }
+
+    @Test
+    void testSet_matchesRules() {
+        assertTestSetMatchesRules(4, 3);
+        assertTestSetMatchesRules(3, 4);
+        assertTestSetMatchesRules(4, 5);
+    }
+
+    /**
+     * Every combination of featureSize cards, in lexicographic order of their positions in the deck.
+     */
+    private static List<int[]> allSets(Util util, List<Integer> deck, int setSize) {
+        List<int[]> sets = new ArrayList<>();
+        int[] combination = IntStream.range(0, setSize).toArray();
+        while (setSize <= deck.size()) {
+            int[] cards = IntStream.of(combination).map(deck::get).sorted().toArray();
+            if (isSet(util, cards)) sets.add(cards);
+            int t = setSize - 1;
+            while (t >= 0 && combination[t] == deck.size() - setSize + t) --t;
+            if (t < 0) break;
+            combination[t]++;
+            for (int i = t + 1; i < setSize; ++i) combination[i] = combination[i - 1] + 1;
+        }
+        return sets;
+    }
+
+    private static void assertFindSetsMatchesRules(int featureCount, int featureSize, int deckSize) {
+        Config config = config(featureCount, featureSize);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(deckSize));
+        deck = deck.subList(0, Math.min(deckSize, deck.size()));
+
+        List<int[]> expected = allSets(util, deck, featureSize);
+        List<int[]> actual = util.findSets(deck, Integer.MAX_VALUE);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i)
+            assertArrayEquals(expected.get(i), actual.get(i));
+
+        if (!expected.isEmpty()) {
+            List<int[]> first = util.findSets(deck, 1);
+            assertEquals(1, first.size());
+            assertArrayEquals(expected.get(0), first.get(0));
+        }
+    }
+
+    @Test
+    void findSets_wholeDefaultDeck() {
+        Config config = config(4, 3);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        assertEquals(1080, util.findSets(deck, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void findSets_matchesRules() {
+        assertFindSetsMatchesRules(4, 3, 12);
+        assertFindSetsMatchesRules(4, 3, 21);
+        assertFindSetsMatchesRules(4, 3, 81);
+        assertFindSetsMatchesRules(3, 4, 30);
+        assertFindSetsMatchesRules(3, 5, 20);
+        assertFindSetsMatchesRules(4, 2, 16);
+        assertFindSetsMatchesRules(4, 3, 2);
+    }
+
+    @Test
+    void findSets_parallelDeterministic() {
+        Properties properties = new Properties();
+        properties.put("SetSearchParallelism", "4");
+        properties.put("SetSearchDeterministic", "True");
+        Config config = config(6, 3, properties);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(0));
+
+        Util sequential = new UtilImpl(config(6, 3)), parallel = new UtilImpl(config);
+        for (int count : new int[]{1, 1000, Integer.MAX_VALUE}) {
+            List<int[]> expected = sequential.findSets(deck, count), actual = parallel.findSets(deck, count);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); ++i)
+                assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void findSets_parallelStopsAtCount() {
+        Properties properties = new Properties();
+        properties.put("SetSearchParallelism", "4");
+        Config config = config(6, 3, properties);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        Util util = new UtilImpl(config);
+        List<int[]> sets = util.findSets(deck, 1000);
+        assertEquals(1000, sets.size());
+        assertEquals(1000, sets.stream().map(Arrays::toString).distinct().count());
+        sets.forEach(set -> assertTrue(isSet(util, set)));
+    }
+
+    @Test
+    void streamSets_matchesFindSets() {
+        Config config = config(5, 3);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(1));
+
+        List<int[]> expected = util.findSets(deck, Integer.MAX_VALUE);
+        List<int[]> sequential = util.streamSets(deck).map(int[]::clone).collect(Collectors.toList());
+        List<int[]> parallel = util.streamSets(deck).parallel().map(int[]::clone).collect(Collectors.toList());
+        assertEquals(expected.size(), sequential.size());
+        assertEquals(expected.size(), parallel.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertArrayEquals(expected.get(i), sequential.get(i));
+            assertArrayEquals(expected.get(i), parallel.get(i));
+        }
+        assertArrayEquals(expected.get(0), util.streamSets(deck).findFirst().orElse(null));
+    }
+
+    @Test
+    void completeSet_completionTable(@TempDir Path cacheDirectory) throws Exception {
+        Properties properties = new Properties();
+        properties.put("CacheDirectory", cacheDirectory.toString());
+        Config config = config(5, 3, properties);
+        Util computed = new UtilImpl(config(5, 3));
+        Util generated = new UtilImpl(config);
+        Path table = cacheDirectory.resolve("completions-5x3.bin");
+        assertTrue(Files.isRegularFile(table));
+        long modified = Files.getLastModifiedTime(table).toMillis();
+        Util mapped = new UtilImpl(config);
+        assertEquals(modified, Files.getLastModifiedTime(table).toMillis());
+
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = 0; b < config.deckSize; ++b) {
+                int[] pair = {a, b};
+                int expected = computed.completeSet(pair);
+                assertEquals(expected, generated.completeSet(pair));
+                assertEquals(expected, mapped.completeSet(pair));
+            }
+    }
+}
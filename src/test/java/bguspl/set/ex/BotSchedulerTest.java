@@ -0,0 +1,56 @@
+package bguspl.set.ex;
+
+import bguspl.set.TestEnv;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BotSchedulerTest {
+
+    private static final int SAMPLES = 100000;
+    private static final long MEAN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static BotScheduler scheduler(String distribution) {
+        Properties properties = new Properties();
+        properties.put("BotThinkTimeDistribution", distribution);
+        properties.put("BotThinkTimeSeconds", "0.1");
+        return new BotScheduler(TestEnv.env(properties), null);
+    }
+
+    /**
+     * @return - the mean of many think times, checking each one is between min and max.
+     */
+    private static double sampleMean(BotScheduler scheduler, long min, long max) {
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; ++i) {
+            long thinkTime = scheduler.thinkTimeNanos();
+            assertTrue(min <= thinkTime && thinkTime <= max);
+            sum += thinkTime;
+        }
+        return sum / SAMPLES;
+    }
+
+    @Test
+    void thinkTime_fixed() {
+        assertEquals(MEAN_NANOS, sampleMean(scheduler("fixed"), MEAN_NANOS, MEAN_NANOS));
+    }
+
+    @Test
+    void thinkTime_uniform() {
+        assertEquals(MEAN_NANOS, sampleMean(scheduler("Uniform"), 0, 2 * MEAN_NANOS), MEAN_NANOS * 0.02);
+    }
+
+    @Test
+    void thinkTime_exponential() {
+        assertEquals(MEAN_NANOS, sampleMean(scheduler("EXPONENTIAL"), 0, Long.MAX_VALUE), MEAN_NANOS * 0.02);
+    }
+
+    @Test
+    void thinkTime_unknownDistribution() {
+        assertEquals(MEAN_NANOS, sampleMean(scheduler("gaussian"), MEAN_NANOS, MEAN_NANOS));
+    }
+}
@@ -0,0 +1,56 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChosenCardsTest {
+
+    @Test
+    void addAndRemove() {
+        ChosenCards chosen = new ChosenCards(3);
+        assertTrue(chosen.add(7));
+        assertFalse(chosen.add(7));
+        assertTrue(chosen.add(2));
+        assertTrue(chosen.add(40));
+        assertFalse(chosen.add(5));
+        assertEquals(3, chosen.size());
+        assertTrue(chosen.contains(2));
+        assertFalse(chosen.contains(5));
+
+        assertTrue(chosen.remove(7));
+        assertFalse(chosen.remove(7));
+        assertArrayEquals(new int[]{40, 2}, chosen.toArray());
+        assertTrue(chosen.add(5));
+        assertEquals(3, chosen.size());
+    }
+
+    @Test
+    void clear() {
+        ChosenCards chosen = new ChosenCards(3);
+        chosen.add(1);
+        chosen.add(0);
+        chosen.clear();
+        assertEquals(0, chosen.size());
+        assertFalse(chosen.contains(0));
+        assertArrayEquals(new int[0], chosen.toArray());
+    }
+
+    @Test
+    void removeOffTable() {
+        ChosenCards chosen = new ChosenCards(3);
+        chosen.add(4);
+        chosen.add(7);
+        chosen.add(9);
+        int[] cardToSlot = new int[10];
+        Arrays.fill(cardToSlot, Table.NONE);
+        cardToSlot[7] = 2;
+        chosen.removeOffTable(cardToSlot);
+        assertArrayEquals(new int[]{7}, chosen.toArray());
+    }
+}
@@ -1,10 +1,11 @@
 package bguspl.set.ex;
-package bguspl.set.ex;
 
 import bguspl.set.Config;
 import bguspl.set.Env;
+import bguspl.set.Threads;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,25 +13,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
  class DealerTest {
     Dealer dealer;
+    private Env env;
     @Mock
     Util util;
     @Mock
     private UserInterface ui;
-    @Mock
     private Table table;
-    @Mock
     private Player[] players;
     @Mock
     private Logger logger;
@@ -41,9 +45,19 @@ import static org.mockito.Mockito.when;
 
     @BeforeEach
     void setUp() {
-        // purposely do not find the configuration files (use defaults here).
-        Env env = new Env(logger, new Config(logger, (String) null), ui, util);
+        // purposely do not find the configuration files (use defaults here, without the table delay).
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        properties.put("VirtualThreads", "true");
+        env = new Env(logger, new Config(logger, properties), ui, util);
+        table = new Table(env);
+        players = new Player[]{mock(Player.class), mock(Player.class)};
         dealer = new Dealer(env , table, players);
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            table.placeCard(slot, slot);
+        table.placeToken(0, 3);
+        table.placeToken(1, 3);
+        table.placeToken(1, 7);
         assertInvariants();
     }
 
@@ -55,16 +69,70 @@ import static org.mockito.Mockito.when;
     @Test
     void removeAllCards_emptySlots() {
         dealer.removeAllCardsFromTable();
-        assertEquals(12,table.emptySlots.size());
+        assertEquals(12,table.emptySlots.cardinality());
+        for (int slot = 0; slot < table.slotToCard.length; slot++)
+            assertEquals(Table.NONE, table.slotToCard[slot]);
     }
     @Test
     void removeAllCards_tokens(){
         dealer.removeAllCardsFromTable();
-        for (ArrayList<Integer> slot:table.tokens) {
-            assertEquals(0,slot.size());
+        for (int slot = 0; slot < table.slotToCard.length; slot++) {
+            assertEquals(0,table.tokens.count(slot));
         }
+        for (Player player : players)
+            verify(player).clearChosenCards();
     }
 
+    @Test
+    void checkSet_legalSetOnDealerThread() throws InterruptedException {
+        // a virtual thread where the JVM supports it (see the jdk21 profile), as in the game
+        int[] cards = {0, 3, 7};
+        when(players[1].hasChosen(anyInt())).thenReturn(true);
+        when(util.testSet(cards)).thenReturn(true);
+        AtomicBoolean legal = new AtomicBoolean();
+        Thread thread = Threads.newThread(env, () -> legal.set(dealer.checkSet(new Claim(1, cards, System.nanoTime()))), "dealer");
+        thread.start();
+        thread.join();
+
+        assertTrue(legal.get());
+        assertEquals(0, players[1].isLegalSet);
+        for (int card : cards) {
+            assertEquals(Table.NONE, table.cardToSlot[card]);
+            assertTrue(table.burnedCards.get(card));
+            assertEquals(0, table.tokens.count(card));
+        }
+        for (Player player : players)
+            verify(player).burnCards(cards);
+    }
 
+    @Test
+    void run_noTimeout_reshufflesTableWithoutSets() throws InterruptedException {
+        // 4 cards of a 9 card deck often have no set: without a turn timeout, only a reshuffle can end such a round
+        Properties properties = new Properties();
+        properties.put("FeatureCount", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("PlayerKeys1", "81,87,69,82");
+        properties.put("PlayerKeys2", "85,73,79,80");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("TurnTimeoutSeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        Config config = new Config(logger, properties);
+        Env game = new Env(logger, config, ui, new UtilImpl(config, logger));
 
+        for (int i = 0; i < 10; ++i) {
+            Table gameTable = new Table(game);
+            Dealer gameDealer = new Dealer(game, gameTable, players);
+            Thread thread = new Thread(gameDealer, "dealer");
+            thread.start();
+            long deadline = System.currentTimeMillis() + 2000;
+            while (thread.isAlive() && gameTable.setIndex.sets().length == 0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(1);
+            boolean stalled = thread.isAlive() && gameTable.setIndex.sets().length == 0;
+            gameDealer.terminate();
+            thread.join();
+            assertFalse(stalled);
+        }
+    }
 }
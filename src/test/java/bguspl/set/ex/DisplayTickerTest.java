@@ -0,0 +1,100 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.TestEnv;
+import bguspl.set.UserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Properties;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class DisplayTickerTest {
+
+    @Mock
+    private UserInterface ui;
+
+    private DisplayTicker ticker;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("TurnTimeoutSeconds", "60");
+        properties.put("TurnTimeoutWarningSeconds", "5");
+        TestEnv.MockLogger logger = new TestEnv.MockLogger();
+        Config config = new Config(logger, properties);
+        ticker = new DisplayTicker(new Env(logger, config, ui, new UtilImpl(config)));
+    }
+
+    @Test
+    void tick_nothingToShow() {
+        ticker.tick(1000);
+        verifyNoInteractions(ui);
+    }
+
+    @Test
+    void tick_countdownRedrawnOncePerSecond() {
+        ticker.resetCountdown(60_000);
+        for (long now = 0; now < 2000; now += 5)
+            ticker.tick(now);
+
+        verify(ui).setCountdown(60_000, false);
+        verify(ui).setCountdown(59_000, false);
+        verify(ui).setCountdown(58_000, false);
+        verify(ui, times(3)).setCountdown(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void tick_countdownRedrawnEveryHundredthInWarning() {
+        ticker.resetCountdown(60_000);
+        for (long now = 55_000; now < 55_100; now += 5)
+            ticker.tick(now);
+
+        verify(ui).setCountdown(5_000, true);
+        verify(ui).setCountdown(4_990, true);
+        verify(ui).setCountdown(4_900, true);
+        verify(ui, times(11)).setCountdown(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void tick_resetRedrawsSameValue() {
+        ticker.resetCountdown(60_000);
+        ticker.tick(0);
+        ticker.resetCountdown(60_000);
+        ticker.tick(0);
+        ticker.tick(0);
+
+        verify(ui, times(2)).setCountdown(60_000, false);
+    }
+
+    @Test
+    void tick_freezeCountsDownToZero() {
+        long start = System.currentTimeMillis();
+        ticker.freeze(1, 2000);
+        for (long now = start; now < start + 3000; now += 10)
+            ticker.tick(now);
+
+        verify(ui).setFreeze(1, 2000);
+        verify(ui).setFreeze(1, 1000);
+        verify(ui).setFreeze(1, 0);
+        verify(ui, never()).setFreeze(eq(0), anyLong());
+
+        clearInvocations(ui);
+        ticker.tick(start + 4000);
+        verifyNoInteractions(ui);
+    }
+}
@@ -14,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -71,6 +72,17 @@ class PlayerTest {
         verify(ui).setScore(eq(player.id), eq(expectedScore));
     }
 
+    @Test
+    void point_dropsQueuedKeyPresses() {
+        player.keyPressed(1);
+        player.keyPressed(2);
+        player.point();
+
+        // the dropped key presses count as settled, so a computer player does not wait for them
+        assertTrue(player.incomingActions.isEmpty());
+        assertEquals(2, player.settledActions());
+    }
+
     @Test
     void randomSlot(){
         int slot = player.randomSlot();
@@ -85,4 +97,17 @@ class PlayerTest {
             assertEquals(expectedSize,player.incomingActions.size());
         }
     }
+
+    @Test
+    void keyPressed_fullQueue(){
+        int capacity = player.incomingActions.remainingCapacity();
+        for (int slot = 0; slot < capacity; slot++)
+            player.keyPressed(slot);
+        player.keyPressed(11);
+
+        // the queue keeps the first key presses, in order
+        assertEquals(capacity, player.incomingActions.size());
+        assertEquals(0, player.incomingActions.peek());
+        assertFalse(player.incomingActions.contains(11));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.TestEnv;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SetTrackerTest {
+
+    private static Env env(int featureCount, int featureSize) {
+        Properties properties = new Properties();
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        return TestEnv.env(properties);
+    }
+
+    /**
+     * Burns the whole deck in a random order, checking the tracker against a full search after every burn.
+     */
+    private static void assertBurnsLikeFullSearch(Env env, boolean counted) {
+        SetTracker tracker = new SetTracker(env);
+        List<Integer> deck = TestEnv.shuffledDeck(env, new Random(env.config.deckSize));
+
+        while (!deck.isEmpty()) {
+            List<String> sets = TestEnv.allSets(env, deck);
+            assertEquals(!sets.isEmpty(), tracker.hasSets());
+            assertEquals(counted ? sets.size() : -1, tracker.countSets());
+            tracker.burn(deck.remove(deck.size() - 1));
+        }
+        assertFalse(tracker.hasSets());
+    }
+
+    @Test
+    void burn_countedSets() {
+        assertBurnsLikeFullSearch(env(4, 3), true);
+        assertBurnsLikeFullSearch(env(3, 4), true);
+    }
+
+    @Test
+    void burn_witnessSet() {
+        assertBurnsLikeFullSearch(env(4, 2), false);
+    }
+}
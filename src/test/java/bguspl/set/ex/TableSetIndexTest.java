@@ -0,0 +1,60 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.TestEnv;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TableSetIndexTest {
+
+    private static Env env(int featureCount, int featureSize) {
+        Properties properties = new Properties();
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("TableDelaySeconds", "0");
+        return TestEnv.env(properties);
+    }
+
+    /**
+     * Deals random cards to random empty slots and removes random cards, checking the index against a full search of
+     * the table after every change.
+     */
+    private static void assertTracksFullSearch(Env env) {
+        Table table = new Table(env);
+        Random random = new Random(table.slotToCard.length);
+        List<Integer> deck = TestEnv.shuffledDeck(env, random);
+
+        for (int change = 0; change < 200 && !deck.isEmpty(); ++change) {
+            int slot = random.nextInt(table.slotToCard.length);
+            if (table.slotToCard[slot] == Table.NONE) table.placeCard(deck.remove(deck.size() - 1), slot);
+            else table.removeCard(slot);
+
+            List<Integer> cards = new ArrayList<>();
+            for (int card : table.slotToCard)
+                if (card != Table.NONE) cards.add(card);
+            assertEquals(TestEnv.allSets(env, cards), TestEnv.sorted(Arrays.asList(table.setIndex.sets())));
+        }
+    }
+
+    @Test
+    void placeAndRemove_setsOfThree() {
+        assertTracksFullSearch(env(4, 3));
+    }
+
+    @Test
+    void placeAndRemove_setsOfFour() {
+        assertTracksFullSearch(env(3, 4));
+    }
+
+    @Test
+    void placeAndRemove_setsOfTwo() {
+        assertTracksFullSearch(env(4, 2));
+    }
+}
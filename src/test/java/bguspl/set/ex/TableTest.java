@@ -2,22 +2,24 @@ package bguspl.set.ex;
 
 import bguspl.set.Config;
 import bguspl.set.Env;
-import bguspl.set.UserInterface;
+import bguspl.set.TestEnv;
 import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
-import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -30,12 +32,14 @@ class TableTest {
         properties.put("TableDelaySeconds", "0");
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
-        MockLogger logger = new MockLogger();
+        TestEnv.MockLogger logger = new TestEnv.MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
-        Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
+        Env env = new Env(logger, config, new TestEnv.MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
     }
 
@@ -58,8 +62,8 @@ class TableTest {
     private void placeSomeCardsAndAssert() throws InterruptedException {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot[8]);
     }
 
     @Test
@@ -97,43 +101,44 @@ class TableTest {
 
     @Test
     void placeCard_emptySlots() throws InterruptedException{
-        table.placeCard(3,6);
-        assertEquals(0,table.emptySlots.size());
+        table.placeCard(3,3);
+        assertEquals(slotToCard.length - 1,table.emptySlots.cardinality());
+        assertFalse(table.emptySlots.get(3));
     }
     @Test
     void removeTokens(){
 
         table.removeTokens(0);
-        assertEquals(0,table.tokens[0].size());
+        assertEquals(0,table.tokens.count(0));
     }
 
 
-    static class MockUserInterface implements UserInterface {
-        @Override
-        public void dispose() {}
-        @Override
-        public void placeCard(int card, int slot) {}
-        @Override
-        public void removeCard(int slot) {}
-        @Override
-        public void setCountdown(long millies, boolean warn) {}
-        @Override
-        public void setElapsed(long millies) {}
-        @Override
-        public void setScore(int player, int score) {}
-        @Override
-        public void setFreeze(int player, long millies) {}
-        @Override
-        public void placeToken(int player, int slot) {}
-        @Override
-        public void removeTokens() {}
-        @Override
-        public void removeTokens(int slot) {}
-        @Override
-        public void removeToken(int player, int slot) {}
-        @Override
-        public void announceWinner(int[] players) {}
-    };
+    @Test
+    void placeAndRemove_largeGrid() {
+        Properties properties = new Properties();
+        properties.put("Rows", "10");
+        properties.put("Columns", "10");
+        properties.put("FeatureCount", "5");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "70");
+        TestEnv.MockLogger logger = new TestEnv.MockLogger();
+        Config config = new Config(logger, properties);
+        Table large = new Table(new Env(logger, config, new TestEnv.MockUserInterface(), new MockUtil()));
+
+        for (int slot = 0; slot < config.tableSize; slot++)
+            large.placeCard(config.deckSize - 1 - slot, slot);
+        assertEquals(config.tableSize, large.countCards());
+        assertEquals(0, large.emptySlots.cardinality());
+
+        large.placeToken(69, config.tableSize - 1);
+        assertEquals(1, large.tokens.count(config.tableSize - 1));
+        for (int slot = 0; slot < config.tableSize; slot++)
+            large.removeCard(slot);
+        assertEquals(0, large.countCards());
+        assertEquals(config.tableSize, large.emptySlots.cardinality());
+        assertEquals(0, large.tokens.count(config.tableSize - 1));
+    }
 
     static class MockUtil implements Util {
         @Override
@@ -151,18 +156,22 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public int completeSet(int[] cards) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
         @Override
-        public void spin() {}
-    }
-
-    static class MockLogger extends Logger {
-        protected MockLogger() {
-            super("", null);
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
         }
+
+        @Override
+        public void spin() {}
     }
 }
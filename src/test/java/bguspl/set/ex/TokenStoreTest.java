@@ -0,0 +1,72 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenStoreTest {
+
+    @Test
+    void placeAndRemove() {
+        TokenStore tokens = new TokenStore(12, 2);
+        assertTrue(tokens.place(1, 5));
+        assertFalse(tokens.place(1, 5));
+        assertTrue(tokens.has(1, 5));
+        assertFalse(tokens.has(0, 5));
+        assertEquals(0b10, tokens.mask(5));
+        assertEquals(1, tokens.count(5));
+
+        assertTrue(tokens.remove(1, 5));
+        assertFalse(tokens.remove(1, 5));
+        assertFalse(tokens.has(1, 5));
+        assertEquals(0, tokens.count(5));
+    }
+
+    @Test
+    void clear_manyPlayers() {
+        TokenStore tokens = new TokenStore(4, 200);
+        int[] players = {0, 63, 64, 130, 199};
+        for (int player : players)
+            tokens.place(player, 2);
+        tokens.place(64, 3);
+        assertEquals(players.length, tokens.count(2));
+        assertEquals(1L | 1L << 63, tokens.mask(2));
+        assertEquals(4, tokens.stripes());
+        assertEquals(1L << 2, tokens.mask(2, 2));
+
+        List<Integer> removed = new ArrayList<>();
+        tokens.clear(2, removed::add);
+        assertEquals(players.length, removed.size());
+        for (int player : players)
+            assertTrue(removed.contains(player));
+        assertEquals(0, tokens.count(2));
+        assertTrue(tokens.has(64, 3));
+    }
+
+    @Test
+    void place_concurrentPlayers() throws InterruptedException {
+        int players = 100, rounds = 10000;
+        TokenStore tokens = new TokenStore(1, players);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < players; ++p) {
+            int player = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < rounds; ++i) {
+                    assertTrue(tokens.place(player, 0));
+                    assertTrue(tokens.remove(player, 0));
+                }
+                tokens.place(player, 0);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(players, tokens.count(0));
+    }
+}